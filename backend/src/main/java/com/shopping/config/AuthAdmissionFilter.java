@@ -0,0 +1,162 @@
+package com.shopping.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopping.service.AuthAdmissionService;
+import com.shopping.service.AuthAdmissionService.Rejection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+/**
+ * Admission control for login and registration, ahead of the security chain, the database and BCrypt.
+ *
+ * The client IP bucket is checked first, then the small JSON body is buffered once to read the email
+ * for the per-email bucket, and finally a slot under the adaptive concurrency limit is held until the
+ * response completes. Rejections are a bare 429 with {@code Retry-After}.
+ */
+@Slf4j
+@Component
+@Order(-200) // Antes da cadeia do Spring Security (-100)
+public class AuthAdmissionFilter implements WebFilter {
+    
+    private static final Set<String> ADMISSION_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+    
+    private final AuthAdmissionService authAdmissionService;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${app.auth.admission.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.auth.admission.max-body-bytes:4096}")
+    private int maxBodyBytes;
+    
+    @Value("${app.auth.admission.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+    
+    public AuthAdmissionFilter(AuthAdmissionService authAdmissionService, ObjectMapper objectMapper) {
+        this.authAdmissionService = authAdmissionService;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || !HttpMethod.POST.equals(request.getMethod())
+            || !ADMISSION_PATHS.contains(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+        
+        if (!authAdmissionService.tryAcquireIp(clientIp(request))) {
+            return reject(exchange, Rejection.IP_RATE);
+        }
+        
+        return DataBufferUtils.join(request.getBody(), maxBodyBytes)
+            .map(AuthAdmissionFilter::toBytes)
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> {
+                String email = emailOf(body);
+                if (email != null && !authAdmissionService.tryAcquireEmail(email)) {
+                    return reject(exchange, Rejection.EMAIL_RATE);
+                }
+                if (!authAdmissionService.tryAcquireSlot()) {
+                    return reject(exchange, Rejection.CONCURRENCY);
+                }
+                return chain.filter(exchange.mutate().request(new BufferedBodyRequest(request, body)).build())
+                    .doFinally(signal -> authAdmissionService.release());
+            })
+            .onErrorResume(DataBufferLimitException.class, e -> {
+                exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+                return exchange.getResponse().setComplete();
+            });
+    }
+    
+    private Mono<Void> reject(ServerWebExchange exchange, Rejection rejection) {
+        log.debug("Auth request rejected ({}) from {}", rejection, exchange.getRequest().getRemoteAddress());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+            String.valueOf(authAdmissionService.retryAfterSeconds(rejection)));
+        return response.setComplete();
+    }
+    
+    private String clientIp(ServerHttpRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress()
+            : remoteAddress.getHostString();
+    }
+    
+    private String emailOf(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() && !email.textValue().isBlank() ? email.textValue() : null;
+        } catch (IOException e) {
+            // Malformed bodies are left to the controller's validation
+            return null;
+        }
+    }
+    
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+    
+    /**
+     * Replays the body already read for admission to the controller.
+     */
+    private static class BufferedBodyRequest extends ServerHttpRequestDecorator {
+        
+        private final byte[] body;
+        
+        BufferedBodyRequest(ServerHttpRequest delegate, byte[] body) {
+            super(delegate);
+            this.body = body;
+        }
+        
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> body.length == 0
+                ? Flux.empty()
+                : Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+}
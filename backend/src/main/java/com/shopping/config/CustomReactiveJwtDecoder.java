@@ -1,49 +1,37 @@
 package com.shopping.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import com.shopping.service.JwtService;
+import com.shopping.service.TokenRevocationService;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
-import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
-import java.time.Instant;
-import java.util.Map;
-
-@Component
+/**
+ * Resource-server decoder backed by {@link JwtService}, so the security chain and the auth endpoints
+ * share one verification path and its cache. Revoked tokens are rejected like invalid ones.
+ */
 public class CustomReactiveJwtDecoder implements ReactiveJwtDecoder {
     
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    
+    public CustomReactiveJwtDecoder(JwtService jwtService, TokenRevocationService tokenRevocationService) {
+        this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+    }
     
     @Override
     public Mono<Jwt> decode(String token) throws JwtException {
+        Jwt jwt;
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            
-            Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-            
-            Map<String, Object> headers = Map.of("alg", "HS256", "typ", "JWT");
-            
-            Jwt jwt = new Jwt(
-                token,
-                claims.getIssuedAt().toInstant(),
-                claims.getExpiration().toInstant(),
-                headers,
-                claims
-            );
-            
-            return Mono.just(jwt);
+            jwt = jwtService.decode(token);
         } catch (Exception e) {
             return Mono.error(new JwtException("Invalid JWT token", e));
         }
+        return tokenRevocationService.isRevoked(jwt)
+            .flatMap(revoked -> revoked
+                ? Mono.error(new JwtException("JWT token has been revoked"))
+                : Mono.just(jwt));
     }
 }
@@ -10,6 +10,12 @@ import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.r2dbc.connection.R2dbcTransactionManager;
 import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableR2dbcRepositories(basePackages = "com.shopping.repository")
@@ -23,12 +29,67 @@ public class DatabaseConfig extends AbstractR2dbcConfiguration {
     
     @Value("${spring.r2dbc.password}")
     private String password;
+    
+    @Value("${app.sharding.enabled:false}")
+    private boolean shardingEnabled;
+    
+    @Value("${app.sharding.urls:}")
+    private List<String> shardUrls;
+    
+    @Value("${app.read-replica.enabled:false}")
+    private boolean replicaEnabled;
+    
+    @Value("${app.read-replica.url:}")
+    private String replicaUrl;
+    
+    @Value("${app.read-replica.read-your-writes-window:5s}")
+    private Duration readYourWritesWindow;
 
     @Override
     @Bean
     public ConnectionFactory connectionFactory() {
+        ConnectionFactory primary = createConnectionFactory(databaseUrl);
+        if (!isSharded() && !hasReplica()) {
+            return primary;
+        }
+        
+        // Orders live on the shards, everything else on the primary (the default target)
+        Map<Object, Object> targets = new HashMap<>();
+        if (isSharded()) {
+            for (int shard = 0; shard < shardUrls.size(); shard++) {
+                targets.put(shard, createConnectionFactory(shardUrls.get(shard)));
+            }
+        }
+        if (hasReplica()) {
+            targets.put(ReadReplicaRouter.REPLICA, createConnectionFactory(replicaUrl));
+        }
+        DatabaseRoutingConnectionFactory routing = new DatabaseRoutingConnectionFactory();
+        routing.setDefaultTargetConnectionFactory(primary);
+        routing.setTargetConnectionFactories(targets);
+        return routing;
+    }
+    
+    @Bean
+    public ShardRouter shardRouter() {
+        return new ShardRouter(isSharded() ? shardUrls.size() : 0);
+    }
+    
+    @Bean
+    public ReadReplicaRouter readReplicaRouter() {
+        return new ReadReplicaRouter(hasReplica(), readYourWritesWindow);
+    }
+    
+    private boolean hasReplica() {
+        return replicaEnabled && replicaUrl != null && !replicaUrl.isBlank();
+    }
+    
+    private boolean isSharded() {
+        return shardingEnabled && shardUrls != null && !shardUrls.isEmpty();
+    }
+    
+    private ConnectionFactory createConnectionFactory(String url) {
         // Parse R2DBC URL to extract host, port, and database
-        String cleanUrl = databaseUrl.replace("r2dbc:postgresql://", "");
+        String cleanUrl = url.replace("r2dbc:postgresql://", "");
         String[] parts = cleanUrl.split("/");
         String[] hostPort = parts[0].split(":");
         String host = hostPort[0];
@@ -50,4 +111,9 @@ public class DatabaseConfig extends AbstractR2dbcConfiguration {
     public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
         return new R2dbcTransactionManager(connectionFactory);
     }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(ReactiveTransactionManager transactionManager) {
+        return TransactionalOperator.create(transactionManager);
+    }
 }
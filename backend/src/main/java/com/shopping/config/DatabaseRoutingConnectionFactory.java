@@ -0,0 +1,18 @@
+package com.shopping.config;
+
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Picks the order shard bound to the subscriber context by {@link ShardRouter}, or the read replica
+ * bound by {@link ReadReplicaRouter}; a shard key wins since the replica only mirrors the primary.
+ * Without either key the primary database is used.
+ */
+public class DatabaseRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(ShardRouter.CONTEXT_KEY)
+            .or(() -> context.getOrEmpty(ReadReplicaRouter.CONTEXT_KEY))));
+    }
+}
@@ -0,0 +1,57 @@
+package com.shopping.config;
+
+import com.shopping.service.EntityIdGenerator;
+import com.shopping.service.RandomUuidGenerator;
+import com.shopping.service.UuidV7Generator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Slf4j
+@Configuration
+public class IdGenerationConfig {
+
+    @Bean
+    public EntityIdGenerator entityIdGenerator(@Value("${app.id.uuid-version:7}") int uuidVersion) {
+        log.info("🆔 Gerando chaves primárias com UUID v{}", uuidVersion);
+        
+        return switch (uuidVersion) {
+            case 4 -> new RandomUuidGenerator();
+            case 7 -> new UuidV7Generator();
+            default -> throw new IllegalArgumentException("Unsupported app.id.uuid-version: " + uuidVersion);
+        };
+    }
+
+    /**
+     * Assigns a generated id to any entity saved without one, so services never set ids themselves
+     * and a null id keeps meaning "insert".
+     */
+    @Bean
+    public BeforeConvertCallback<Object> entityIdAssigningCallback(R2dbcMappingContext mappingContext,
+                                                                   EntityIdGenerator entityIdGenerator) {
+        return (entity, table) -> {
+            RelationalPersistentEntity<?> persistentEntity = mappingContext.getPersistentEntity(entity.getClass());
+            if (persistentEntity == null) {
+                return Mono.just(entity);
+            }
+            
+            RelationalPersistentProperty idProperty = persistentEntity.getIdProperty();
+            if (idProperty != null && UUID.class.equals(idProperty.getType())) {
+                PersistentPropertyAccessor<Object> accessor = persistentEntity.getPropertyAccessor(entity);
+                if (accessor.getProperty(idProperty) == null) {
+                    accessor.setProperty(idProperty, entityIdGenerator.newId());
+                }
+            }
+            return Mono.just(entity);
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.shopping.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Sends read-only queries to the streaming replica configured by {@code app.read-replica.url}.
+ *
+ * The choice is carried in the Reactor context and resolved by {@link DatabaseRoutingConnectionFactory}
+ * when a connection is opened. Queries inside a transaction keep using the transaction's connection,
+ * so reads that feed a write are never served by the replica. Reads on behalf of a user who wrote
+ * within {@code read-your-writes-window} go to the primary, and all reads fall back to the primary
+ * while the replica lags more than {@code max-lag}. The write window is tracked per node, so it only
+ * holds across nodes when the window is longer than the replica lag. When the replica is disabled
+ * every method is a pass-through.
+ */
+public class ReadReplicaRouter {
+
+    static final String CONTEXT_KEY = ReadReplicaRouter.class.getName() + ".target";
+    static final String REPLICA = "replica";
+
+    private final boolean enabled;
+    private final Cache<UUID, Boolean> recentWriters;
+    private volatile boolean lagging;
+
+    public ReadReplicaRouter(boolean enabled, Duration readYourWritesWindow) {
+        this(enabled, readYourWritesWindow, Ticker.systemTicker());
+    }
+
+    ReadReplicaRouter(boolean enabled, Duration readYourWritesWindow, Ticker ticker) {
+        this.enabled = enabled;
+        this.recentWriters = Caffeine.newBuilder()
+            .expireAfterWrite(readYourWritesWindow)
+            .maximumSize(100_000)
+            .ticker(ticker)
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> Mono<T> onReplica(Mono<T> publisher) {
+        return onReplica(null, publisher);
+    }
+
+    public <T> Flux<T> onReplica(Flux<T> publisher) {
+        return onReplica(null, publisher);
+    }
+
+    /**
+     * Runs on the replica unless {@code userId} wrote recently or the replica is lagging.
+     */
+    public <T> Mono<T> onReplica(UUID userId, Mono<T> publisher) {
+        return enabled ? publisher.contextWrite(context -> useReplica(userId) ? context.put(CONTEXT_KEY, REPLICA) : context) : publisher;
+    }
+
+    public <T> Flux<T> onReplica(UUID userId, Flux<T> publisher) {
+        return enabled ? publisher.contextWrite(context -> useReplica(userId) ? context.put(CONTEXT_KEY, REPLICA) : context) : publisher;
+    }
+
+    /**
+     * Runs on the replica regardless of lag, for probing the replica itself.
+     */
+    public <T> Mono<T> onReplicaOnly(Mono<T> publisher) {
+        return enabled ? publisher.contextWrite(context -> context.put(CONTEXT_KEY, REPLICA)) : publisher;
+    }
+
+    /**
+     * Marks a write by {@code userId}, pinning that user's reads to the primary for the
+     * read-your-writes window.
+     */
+    public void recordWrite(UUID userId) {
+        if (enabled && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public void setLagging(boolean lagging) {
+        this.lagging = lagging;
+    }
+
+    public boolean isLagging() {
+        return lagging;
+    }
+
+    private boolean useReplica(UUID userId) {
+        return !lagging && (userId == null || recentWriters.getIfPresent(userId) == null);
+    }
+}
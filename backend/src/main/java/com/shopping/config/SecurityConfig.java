@@ -1,5 +1,7 @@
 package com.shopping.config;
 
+import com.shopping.service.JwtService;
+import com.shopping.service.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,10 +10,12 @@ import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.List;
@@ -21,6 +25,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
     
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
         return http
@@ -38,6 +45,8 @@ public class SecurityConfig {
                 // Admin endpoints
                 .pathMatchers("/api/users/**").hasRole("ADMIN")
                 .pathMatchers("/api/orders/status/**").hasRole("ADMIN")
+                .pathMatchers("/api/orders/stats", "/api/orders/export", "/api/orders/cancel").hasRole("ADMIN")
+                .pathMatchers("/api/reports/**").hasRole("ADMIN")
                 
                 // Authenticated endpoints
                 .pathMatchers("/api/cart/**").authenticated()
@@ -46,7 +55,11 @@ public class SecurityConfig {
                 .anyExchange().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.jwtDecoder(jwtDecoder()))
+                .jwt(jwt -> jwt
+                    .jwtDecoder(jwtDecoder())
+                    // Map the token's role claim to ROLE_* so hasRole(...) matches
+                    .jwtAuthenticationConverter(token -> Mono.just(
+                        new JwtAuthenticationToken(token, jwtService.authorities(token), token.getSubject()))))
             )
             .build();
     }
@@ -71,7 +84,6 @@ public class SecurityConfig {
     
     @Bean
     public ReactiveJwtDecoder jwtDecoder() {
-        // This will be implemented with JWT secret
-        return new CustomReactiveJwtDecoder();
+        return new CustomReactiveJwtDecoder(jwtService, tokenRevocationService);
     }
 }
@@ -0,0 +1,62 @@
+package com.shopping.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Applies the Flyway migrations to every order shard at startup; the primary is migrated by
+ * Spring Boot's own Flyway setup.
+ *
+ * Shards only run {@code app.sharding.migrations.locations} ({@code db/migration}), not
+ * {@code db/primary}, which holds the order foreign keys to users and products that only exist on
+ * the primary.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardMigrator implements InitializingBean {
+    
+    @Value("${app.sharding.urls:}")
+    private List<String> shardUrls;
+    
+    @Value("${app.sharding.migrations.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.sharding.migrations.locations:classpath:db/migration}")
+    private String[] locations;
+    
+    @Value("${spring.r2dbc.username}")
+    private String username;
+    
+    @Value("${spring.r2dbc.password}")
+    private String password;
+    
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled || shardUrls == null) {
+            return;
+        }
+        
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            MigrateResult result = Flyway.configure()
+                .dataSource(jdbcUrl(shardUrls.get(shard)), username, password)
+                .locations(locations)
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+            log.info("Order shard {} migrated to version {} ({} migrations applied)",
+                shard, result.targetSchemaVersion, result.migrationsExecuted);
+        }
+    }
+    
+    static String jdbcUrl(String r2dbcUrl) {
+        return r2dbcUrl.replaceFirst("^r2dbc:", "jdbc:");
+    }
+}
@@ -0,0 +1,104 @@
+package com.shopping.config;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Routes order storage to one of {@code app.sharding.urls} by user id.
+ *
+ * The shard is chosen with jump consistent hashing on the user id, so growing from N to N+1 shards
+ * only moves about 1/(N+1) of the users. The choice is carried in the Reactor context and resolved
+ * by {@link DatabaseRoutingConnectionFactory} when a connection is opened, which also covers
+ * transactions started inside the routed publisher. When sharding is disabled every method is a
+ * pass-through and all queries go to the primary database.
+ */
+public class ShardRouter {
+
+    static final String CONTEXT_KEY = ShardRouter.class.getName() + ".shard";
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public boolean isEnabled() {
+        return shardCount > 0;
+    }
+
+    public int shardCount() {
+        return Math.max(shardCount, 1);
+    }
+
+    public int shardFor(UUID userId) {
+        return isEnabled() ? jumpHash(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits(), shardCount) : 0;
+    }
+
+    public <T> Mono<T> onShard(int shard, Mono<T> publisher) {
+        return isEnabled() ? publisher.contextWrite(context -> context.put(CONTEXT_KEY, shard)) : publisher;
+    }
+
+    public <T> Flux<T> onShard(int shard, Flux<T> publisher) {
+        return isEnabled() ? publisher.contextWrite(context -> context.put(CONTEXT_KEY, shard)) : publisher;
+    }
+
+    public <T> Mono<T> onUserShard(UUID userId, Mono<T> publisher) {
+        return onShard(shardFor(userId), publisher);
+    }
+
+    public <T> Flux<T> onUserShard(UUID userId, Flux<T> publisher) {
+        return onShard(shardFor(userId), publisher);
+    }
+
+    /**
+     * Runs on the primary database even when called from a publisher routed to a shard.
+     */
+    public <T> Mono<T> onPrimary(Mono<T> publisher) {
+        return isEnabled() ? publisher.contextWrite(context -> context.delete(CONTEXT_KEY)) : publisher;
+    }
+
+    /**
+     * Scatter-gather: runs {@code query} on every shard concurrently and merges the results in
+     * arrival order.
+     */
+    public <T> Flux<T> onEachShard(IntFunction<? extends Publisher<T>> query) {
+        if (!isEnabled()) {
+            return Flux.from(query.apply(0));
+        }
+        return Flux.range(0, shardCount)
+            .flatMap(shard -> onShard(shard, Flux.from(query.apply(shard))), shardCount);
+    }
+
+    /**
+     * Scatter-gather for queries whose per-shard results are already sorted by {@code order}:
+     * results are merged lazily into one stream with the same order.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> onEachShardSorted(Comparator<? super T> order, IntFunction<? extends Publisher<T>> query) {
+        if (!isEnabled()) {
+            return Flux.from(query.apply(0));
+        }
+        Publisher<T>[] sources = new Publisher[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            sources[shard] = onShard(shard, Flux.from(query.apply(shard)));
+        }
+        return Flux.mergeComparing(order, sources);
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -5,7 +5,9 @@ import com.shopping.dto.LoginResponse;
 import com.shopping.dto.RegisterRequest;
 import com.shopping.model.User;
 import com.shopping.service.JwtService;
+import com.shopping.service.TokenRevocationService;
 import com.shopping.service.UserService;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
 import jakarta.validation.Valid;
+import java.time.Instant;
 
 @Slf4j
 @RestController
@@ -31,14 +34,21 @@ public class AuthController {
     
     private final UserService userService;
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
     
     @Operation(summary = "Registrar novo usuário", description = "Cria uma nova conta de usuário no sistema")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Usuário registrado com sucesso",
                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoginResponse.class))),
-        @ApiResponse(responseCode = "400", description = "Dados inválidos ou email já existe",
+        @ApiResponse(responseCode = "400", description = "Dados inválidos",
+                content = @Content),
+        @ApiResponse(responseCode = "409", description = "Email já cadastrado",
                 content = @Content),
         @ApiResponse(responseCode = "500", description = "Erro interno do servidor",
+                content = @Content),
+        @ApiResponse(responseCode = "429", description = "Muitas tentativas, aguarde o tempo indicado em Retry-After",
+                content = @Content),
+        @ApiResponse(responseCode = "503", description = "Servidor sobrecarregado, tente novamente",
                 content = @Content)
     })
     @PostMapping("/register")
@@ -86,41 +96,38 @@ public class AuthController {
         @ApiResponse(responseCode = "403", description = "Usuário inativo",
                 content = @Content),
         @ApiResponse(responseCode = "404", description = "Usuário não encontrado",
+                content = @Content),
+        @ApiResponse(responseCode = "429", description = "Muitas tentativas, aguarde o tempo indicado em Retry-After",
+                content = @Content),
+        @ApiResponse(responseCode = "503", description = "Servidor sobrecarregado, tente novamente",
                 content = @Content)
     })
     @PostMapping("/login")
     public Mono<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request) {
         log.info("POST /api/auth/login - Login attempt for: {}", request.getEmail());
         
-        return userService.getUserByEmail(request.getEmail())
-            .flatMap(user -> {
-                return userService.validatePassword(request.getEmail(), request.getPassword())
-                    .flatMap(isValid -> {
-                        if (!isValid) {
-                            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<LoginResponse>build());
-                        }
-                        
-                        if (!user.getIsActive()) {
-                            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).<LoginResponse>build());
-                        }
-                        
-                        String token = jwtService.generateToken(
-                            user.getId(),
-                            user.getEmail(),
-                            user.getRole().name()
-                        );
-                        
-                        LoginResponse response = LoginResponse.builder()
-                            .token(token)
-                            .userId(user.getId())
-                            .email(user.getEmail())
-                            .firstName(user.getFirstName())
-                            .lastName(user.getLastName())
-                            .role(user.getRole().name())
-                            .build();
-                        
-                        return Mono.just(ResponseEntity.ok(response));
-                    });
+        return userService.authenticate(request.getEmail(), request.getPassword())
+            .map(user -> {
+                if (!user.getIsActive()) {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN).<LoginResponse>build();
+                }
+                
+                String token = jwtService.generateToken(
+                    user.getId(),
+                    user.getEmail(),
+                    user.getRole().name()
+                );
+                
+                LoginResponse response = LoginResponse.builder()
+                    .token(token)
+                    .userId(user.getId())
+                    .email(user.getEmail())
+                    .firstName(user.getFirstName())
+                    .lastName(user.getLastName())
+                    .role(user.getRole().name())
+                    .build();
+                
+                return ResponseEntity.ok(response);
             })
             .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
@@ -134,8 +141,34 @@ public class AuthController {
         }
         
         String token = authHeader.substring(7);
-        boolean isValid = jwtService.isTokenValid(token);
         
-        return Mono.just(ResponseEntity.ok(isValid));
+        return Mono.fromCallable(() -> jwtService.decode(token))
+            .filter(jwt -> jwt.getExpiresAt().isAfter(Instant.now()))
+            .flatMap(jwt -> tokenRevocationService.isRevoked(jwt).map(revoked -> !revoked))
+            .onErrorReturn(false)
+            .defaultIfEmpty(false)
+            .map(ResponseEntity::ok);
+    }
+    
+    @Operation(summary = "Fazer logout", description = "Revoga o token JWT informado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Token revogado", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Token inválido", content = @Content)
+    })
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestHeader("Authorization") String authHeader) {
+        log.info("POST /api/auth/logout - Revoking token");
+        
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        
+        String token = authHeader.substring(7);
+        
+        return Mono.fromCallable(() -> jwtService.decode(token))
+            .flatMap(jwt -> tokenRevocationService.revokeToken(jwt)
+                .thenReturn(ResponseEntity.noContent().<Void>build()))
+            .onErrorResume(JwtException.class,
+                e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
     }
 }
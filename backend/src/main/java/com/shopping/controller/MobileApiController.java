@@ -2,19 +2,20 @@ package com.shopping.controller;
 
 import com.shopping.dto.CartSummaryDto;
 import com.shopping.dto.ProductDto;
+import com.shopping.exception.CartConflictException;
 import com.shopping.model.Product;
-import com.shopping.model.CartItem;
+import com.shopping.service.PricingService;
 import com.shopping.service.ProductService;
 import com.shopping.service.ShoppingCartService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -26,6 +27,7 @@ public class MobileApiController {
     
     private final ProductService productService;
     private final ShoppingCartService cartService;
+    private final PricingService pricingService;
     
     // Endpoints otimizados para mobile
     
@@ -99,9 +101,12 @@ public class MobileApiController {
         log.info("PUT /api/mobile/cart/{}/update - Updating cart: productId={}, quantity={}", 
                 userId, request.getProductId(), request.getQuantity());
         
-        return cartService.updateCartItem(userId, request.getProductId(), request.getQuantity())
+        return cartService.updateCartItem(userId, request.getProductId(), request.getQuantity(), request.getExpectedVersion())
                 .then(getCartSummary(userId))
                 .map(ResponseEntity::ok)
+                // Devolver o estado atual do carrinho em caso de edição concorrente
+                .onErrorResume(CartConflictException.class, e -> getCartSummary(userId)
+                        .map(summary -> ResponseEntity.status(HttpStatus.CONFLICT).body(summary)))
                 .onErrorReturn(ResponseEntity.badRequest().build());
     }
     
@@ -123,20 +128,16 @@ public class MobileApiController {
         
         return cartService.getCartItems(userId)
                 .collectList()
-                .zipWith(cartService.getCartTotal(userId))
-                .zipWith(cartService.getCartItemCount(userId))
-                .map(tuple -> {
-                    List<CartItem> items = tuple.getT1().getT1();
-                    BigDecimal total = tuple.getT1().getT2();
-                    Long count = tuple.getT2();
+                .map(items -> {
+                    PricingService.PriceBreakdown pricing = pricingService.price(items);
                     
                     return CartSummaryDto.builder()
                             .items(items)
-                            .subtotal(total)
-                            .shipping(calculateShipping(total))
-                            .tax(calculateTax(total))
-                            .total(calculateTotal(total))
-                            .itemCount(count.intValue())
+                            .subtotal(pricing.subtotal().toBigDecimal())
+                            .shipping(pricing.shipping().toBigDecimal())
+                            .tax(pricing.tax().toBigDecimal())
+                            .total(pricing.total().toBigDecimal())
+                            .itemCount(items.size())
                             .build();
                 });
     }
@@ -169,20 +170,6 @@ public class MobileApiController {
                 .build();
     }
     
-    private BigDecimal calculateShipping(BigDecimal subtotal) {
-        return subtotal.compareTo(new BigDecimal("50.00")) >= 0 
-                ? BigDecimal.ZERO 
-                : new BigDecimal("9.99");
-    }
-    
-    private BigDecimal calculateTax(BigDecimal subtotal) {
-        return subtotal.multiply(new BigDecimal("0.08")); // 8% tax
-    }
-    
-    private BigDecimal calculateTotal(BigDecimal subtotal) {
-        return subtotal.add(calculateShipping(subtotal)).add(calculateTax(subtotal));
-    }
-    
     // Request DTOs
     public static class AddToCartRequest {
         private UUID productId;
@@ -197,10 +184,13 @@ public class MobileApiController {
     public static class UpdateCartRequest {
         private UUID productId;
         private int quantity;
+        private Long expectedVersion;
         
         public UUID getProductId() { return productId; }
         public void setProductId(UUID productId) { this.productId = productId; }
         public int getQuantity() { return quantity; }
         public void setQuantity(int quantity) { this.quantity = quantity; }
+        public Long getExpectedVersion() { return expectedVersion; }
+        public void setExpectedVersion(Long expectedVersion) { this.expectedVersion = expectedVersion; }
     }
 }
@@ -1,16 +1,27 @@
 package com.shopping.controller;
 
+import com.shopping.dto.BulkCancelResultDto;
+import com.shopping.dto.OrderHistoryPageDto;
+import com.shopping.dto.OrderStatsDto;
 import com.shopping.model.Order;
 import com.shopping.model.OrderItem;
+import com.shopping.service.CheckoutBatcher;
+import com.shopping.service.IdempotencyService;
+import com.shopping.service.OrderExportService;
 import com.shopping.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -21,6 +32,9 @@ import java.util.UUID;
 public class OrderController {
     
     private final OrderService orderService;
+    private final CheckoutBatcher checkoutBatcher;
+    private final IdempotencyService idempotencyService;
+    private final OrderExportService orderExportService;
     
     @GetMapping
     public Flux<Order> getAllOrders(
@@ -34,6 +48,21 @@ public class OrderController {
         return orderService.getOrdersWithPagination(page, size);
     }
     
+    @GetMapping("/export")
+    public ResponseEntity<Flux<String>> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("GET /api/orders/export - Exporting orders from {} to {}", from, to);
+        
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(new MediaType("text", "csv"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\"")
+            .body(orderExportService.exportCsv(from, to));
+    }
+    
     @GetMapping("/{id}")
     public Mono<ResponseEntity<Order>> getOrderById(@PathVariable UUID id) {
         log.info("GET /api/orders/{} - Getting order by id", id);
@@ -58,6 +87,21 @@ public class OrderController {
         return orderService.getOrdersByUser(userId);
     }
     
+    @GetMapping("/user/{userId}/history")
+    public Mono<ResponseEntity<OrderHistoryPageDto>> getOrderHistory(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) UUID beforeId,
+            @RequestParam(defaultValue = "true") boolean includeProductNames) {
+        log.info("GET /api/orders/user/{}/history - Getting order history, limit {}", userId, limit);
+        
+        return orderService.getOrderHistory(userId, beforeCreatedAt, beforeId, limit, includeProductNames)
+            .map(ResponseEntity::ok)
+            .onErrorReturn(IllegalArgumentException.class, 
+                ResponseEntity.badRequest().build());
+    }
+    
     @GetMapping("/status/{status}")
     public Flux<Order> getOrdersByStatus(@PathVariable Order.OrderStatus status) {
         log.info("GET /api/orders/status/{} - Getting orders by status", status);
@@ -75,10 +119,25 @@ public class OrderController {
             @RequestParam UUID userId,
             @RequestParam String shippingAddress,
             @RequestParam(required = false) String billingAddress,
-            @RequestParam String paymentMethod) {
+            @RequestParam String paymentMethod,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/orders/create-from-cart - Creating order from cart for user: {}", userId);
         
-        return orderService.createOrderFromCart(userId, shippingAddress, billingAddress, paymentMethod)
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(userId, shippingAddress, billingAddress, paymentMethod);
+        }
+        if (idempotencyKey.length() > 255) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        
+        String request = String.join("\n", userId.toString(), shippingAddress,
+            String.valueOf(billingAddress), paymentMethod);
+        return idempotencyService.execute(userId, idempotencyKey, request, Order.class,
+            () -> placeOrder(userId, shippingAddress, billingAddress, paymentMethod));
+    }
+    
+    private Mono<ResponseEntity<Order>> placeOrder(UUID userId, String shippingAddress, String billingAddress, String paymentMethod) {
+        return checkoutBatcher.submit(userId, shippingAddress, billingAddress, paymentMethod)
             .map(order -> ResponseEntity.status(HttpStatus.CREATED).body(order))
             .onErrorReturn(IllegalArgumentException.class, 
                 ResponseEntity.badRequest().build());
@@ -118,12 +177,28 @@ public class OrderController {
                 ResponseEntity.badRequest().build());
     }
     
+    @PostMapping("/cancel")
+    public Mono<ResponseEntity<BulkCancelResultDto>> cancelOrders(@RequestBody List<UUID> orderIds) {
+        log.info("POST /api/orders/cancel - Cancelling {} orders", orderIds.size());
+        
+        return orderService.cancelOrders(orderIds)
+            .map(ResponseEntity::ok)
+            .onErrorReturn(IllegalArgumentException.class, 
+                ResponseEntity.badRequest().build());
+    }
+    
     @GetMapping("/user/{userId}/count")
     public Mono<Long> countOrdersByUser(@PathVariable UUID userId) {
         log.info("GET /api/orders/user/{}/count - Counting orders for user", userId);
         return orderService.countOrdersByUser(userId);
     }
     
+    @GetMapping("/stats")
+    public Mono<OrderStatsDto> getOrderStats() {
+        log.info("GET /api/orders/stats - Getting order counts by status");
+        return orderService.getOrderStats();
+    }
+    
     @GetMapping("/status/{status}/count")
     public Mono<Long> countOrdersByStatus(@PathVariable Order.OrderStatus status) {
         log.info("GET /api/orders/status/{}/count - Counting orders by status", status);
@@ -0,0 +1,41 @@
+package com.shopping.controller;
+
+import com.shopping.dto.SalesRollupDto;
+import com.shopping.repository.SalesRollupRepository;
+import com.shopping.service.SalesReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:19006", "http://127.0.0.1:8090", "http://localhost:8090"})
+public class ReportController {
+    
+    private final SalesReportService salesReportService;
+    
+    @GetMapping("/sales")
+    public Mono<ResponseEntity<List<SalesRollupDto>>> getSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") SalesRollupRepository.Granularity granularity,
+            @RequestParam(defaultValue = "PRODUCT") SalesRollupRepository.Dimension dimension,
+            @RequestParam(required = false) UUID id) {
+        log.info("GET /api/reports/sales - {} sales by {} from {} to {}", granularity, dimension, from, to);
+        
+        return salesReportService.getSales(granularity, dimension, id, from, to)
+            .collectList()
+            .map(ResponseEntity::ok)
+            .onErrorReturn(IllegalArgumentException.class, 
+                ResponseEntity.badRequest().build());
+    }
+}
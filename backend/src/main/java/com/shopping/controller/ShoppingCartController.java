@@ -44,10 +44,11 @@ public class ShoppingCartController {
     public Mono<ResponseEntity<CartItem>> updateCartItem(
             @PathVariable UUID userId,
             @PathVariable UUID productId,
-            @RequestParam int quantity) {
-        log.info("PUT /api/cart/{}/items/{} - Updating cart item quantity: {}", userId, productId, quantity);
+            @RequestParam int quantity,
+            @RequestParam(required = false) Long expectedVersion) {
+        log.info("PUT /api/cart/{}/items/{} - Updating cart item quantity: {} (version {})", userId, productId, quantity, expectedVersion);
         
-        return cartService.updateCartItem(userId, productId, quantity)
+        return cartService.updateCartItem(userId, productId, quantity, expectedVersion)
             .map(ResponseEntity::ok)
             .onErrorReturn(IllegalArgumentException.class, 
                 ResponseEntity.badRequest().build());
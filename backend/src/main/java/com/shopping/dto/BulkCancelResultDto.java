@@ -0,0 +1,19 @@
+package com.shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCancelResultDto {
+    private List<UUID> cancelled;
+    // Orders that do not exist or are no longer cancellable
+    private List<UUID> notCancelled;
+}
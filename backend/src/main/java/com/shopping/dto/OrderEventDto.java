@@ -0,0 +1,30 @@
+package com.shopping.dto;
+
+import com.shopping.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Payload of the order events written to the outbox.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDto {
+    private UUID orderId;
+    private String orderNumber;
+    private UUID userId;
+    private Order.OrderStatus status;
+    private Order.OrderStatus previousStatus;
+    private Order.PaymentStatus paymentStatus;
+    private Order.PaymentStatus previousPaymentStatus;
+    private BigDecimal totalAmount;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,18 @@
+package com.shopping.dto;
+
+import com.shopping.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistoryDto {
+    private Order order;
+    private List<OrderLineDto> items;
+}
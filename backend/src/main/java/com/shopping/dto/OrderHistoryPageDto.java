@@ -0,0 +1,21 @@
+package com.shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistoryPageDto {
+    private List<OrderHistoryDto> orders;
+    // Keyset cursor for the next page; null when this is the last page
+    private LocalDateTime nextBeforeCreatedAt;
+    private UUID nextBeforeId;
+}
@@ -0,0 +1,23 @@
+package com.shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineDto {
+    private UUID id;
+    private UUID orderId;
+    private UUID productId;
+    private String productName;
+    private int quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal totalPrice;
+}
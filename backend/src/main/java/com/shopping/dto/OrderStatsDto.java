@@ -0,0 +1,22 @@
+package com.shopping.dto;
+
+import com.shopping.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsDto {
+    private long totalOrders;
+    private Map<Order.OrderStatus, Long> byStatus;
+    private Map<Order.PaymentStatus, Long> byPaymentStatus;
+    // When the counts were last loaded from the database
+    private LocalDateTime loadedAt;
+}
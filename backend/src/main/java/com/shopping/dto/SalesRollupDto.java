@@ -0,0 +1,23 @@
+package com.shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupDto {
+    private LocalDateTime bucket;
+    private String dimension;
+    private UUID dimensionId;
+    private long units;
+    private BigDecimal revenue;
+    private long orderCount;
+}
@@ -0,0 +1,29 @@
+package com.shopping.exception;
+
+import com.shopping.model.CartItem;
+
+import java.util.UUID;
+
+/**
+ * Raised when a cart line could not be updated because another request changed it first.
+ * Carries the current state of the line so clients can reconcile without refetching the cart.
+ */
+public class CartConflictException extends RuntimeException {
+    
+    private final UUID cartId;
+    private final CartItem currentItem;
+    
+    public CartConflictException(String message, UUID cartId, CartItem currentItem) {
+        super(message);
+        this.cartId = cartId;
+        this.currentItem = currentItem;
+    }
+    
+    public UUID getCartId() {
+        return cartId;
+    }
+    
+    public CartItem getCurrentItem() {
+        return currentItem;
+    }
+}
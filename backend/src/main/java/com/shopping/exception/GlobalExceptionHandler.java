@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
@@ -42,6 +43,37 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse));
     }
 
+    @ExceptionHandler(CartConflictException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleCartConflictException(CartConflictException ex) {
+        log.warn("CartConflictException: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = createErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Conflict",
+            ex.getMessage()
+        );
+        errorResponse.put("cartId", ex.getCartId());
+        errorResponse.put("productId", ex.getCurrentItem().getProductId());
+        errorResponse.put("quantity", ex.getCurrentItem().getQuantity());
+        errorResponse.put("version", ex.getCurrentItem().getVersion());
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleResponseStatusException(ResponseStatusException ex) {
+        log.warn("ResponseStatusException: {} {}", ex.getStatusCode(), ex.getReason());
+        
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        Map<String, Object> errorResponse = createErrorResponse(
+            status.value(),
+            status.getReasonPhrase(),
+            ex.getReason()
+        );
+        
+        return Mono.just(ResponseEntity.status(status).headers(ex.getHeaders()).body(errorResponse));
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<Map<String, Object>>> handleValidationException(WebExchangeBindException ex) {
         log.error("Validation error: {}", ex.getMessage());
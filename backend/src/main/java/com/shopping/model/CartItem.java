@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -45,6 +46,10 @@ public class CartItem {
     @Column("unit_price")
     private BigDecimal unitPrice;
     
+    @Version
+    @Column("version")
+    private Long version;
+    
     @CreatedDate
     @Column("created_at")
     private LocalDateTime createdAt;
@@ -55,7 +60,11 @@ public class CartItem {
     
     // Helper methods
     public BigDecimal getTotalPrice() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return lineTotal().toBigDecimal();
+    }
+    
+    public Money lineTotal() {
+        return Money.of(unitPrice).times(quantity);
     }
     
     public void updateQuantity(int newQuantity) {
@@ -0,0 +1,65 @@
+package com.shopping.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("idempotency_keys")
+public class IdempotencyRecord {
+    
+    @Id
+    private UUID id;
+    
+    @NotNull(message = "User ID is required")
+    @Column("user_id")
+    private UUID userId;
+    
+    @NotBlank(message = "Idempotency key is required")
+    @Size(max = 255, message = "Idempotency key must not exceed 255 characters")
+    @Column("idempotency_key")
+    private String idempotencyKey;
+    
+    @Column("request_hash")
+    private String requestHash;
+    
+    @Builder.Default
+    @Column("status")
+    private Status status = Status.IN_PROGRESS;
+    
+    @Column("response_status")
+    private Integer responseStatus;
+    
+    @Column("response_body")
+    private String responseBody;
+    
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+    
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+    
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+    
+    // Helper methods
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+}
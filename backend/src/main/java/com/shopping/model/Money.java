@@ -0,0 +1,66 @@
+package com.shopping.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable monetary amount held as a {@code long} number of minor units (cents).
+ *
+ * Used for cart and order arithmetic so that summing lines, shipping and tax does not allocate a
+ * {@link BigDecimal} per operation. Conversion to {@link BigDecimal} happens only at the edges
+ * (entities and API responses).
+ */
+public record Money(long cents) implements Comparable<Money> {
+    
+    public static final Money ZERO = new Money(0L);
+    
+    private static final int SCALE = 2;
+    
+    public static Money ofCents(long cents) {
+        return cents == 0L ? ZERO : new Money(cents);
+    }
+    
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+    
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount));
+    }
+    
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+    
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, (long) quantity));
+    }
+    
+    /**
+     * Applies a rate given in parts per million (0.08875 = 88,750), rounding half up to the cent.
+     */
+    public Money timesRate(long partsPerMillion) {
+        return ofCents(Math.floorDiv(Math.multiplyExact(cents, partsPerMillion) + 500_000L, 1_000_000L));
+    }
+    
+    public boolean isGreaterThanOrEqual(Money other) {
+        return cents >= other.cents;
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.shopping.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("outbox_events")
+public class OutboxEvent {
+    
+    @Id
+    private Long id;
+    
+    @NotBlank(message = "Aggregate type is required")
+    @Column("aggregate_type")
+    private String aggregateType;
+    
+    @NotNull(message = "Aggregate ID is required")
+    @Column("aggregate_id")
+    private UUID aggregateId;
+    
+    @NotBlank(message = "Event type is required")
+    @Column("event_type")
+    private String eventType;
+    
+    @NotBlank(message = "Payload is required")
+    @Column("payload")
+    private String payload;
+    
+    @Builder.Default
+    @Column("status")
+    private Status status = Status.PENDING;
+    
+    @Builder.Default
+    @Column("attempts")
+    private Integer attempts = 0;
+    
+    @Column("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column("last_error")
+    private String lastError;
+    
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+    
+    @Column("published_at")
+    private LocalDateTime publishedAt;
+    
+    public enum Status {
+        PENDING, PUBLISHED, FAILED
+    }
+}
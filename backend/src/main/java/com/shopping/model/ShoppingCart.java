@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -28,6 +29,10 @@ public class ShoppingCart {
     @Column("user_id")
     private UUID userId;
     
+    @Version
+    @Column("version")
+    private Long version;
+    
     @CreatedDate
     @Column("created_at")
     private LocalDateTime createdAt;
@@ -0,0 +1,52 @@
+package com.shopping.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("stock_reservations")
+public class StockReservation {
+    
+    @Id
+    private UUID id;
+    
+    @NotNull(message = "Cart ID is required")
+    @Column("cart_id")
+    private UUID cartId;
+    
+    @NotNull(message = "Product ID is required")
+    @Column("product_id")
+    private UUID productId;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Column("quantity")
+    private Integer quantity;
+    
+    @NotNull(message = "Expiration is required")
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+    
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+    
+    // Helper methods
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,46 @@
+package com.shopping.repository;
+
+import com.shopping.model.IdempotencyRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends R2dbcRepository<IdempotencyRecord, UUID> {
+    
+    @Query("SELECT * FROM idempotency_keys " +
+           "WHERE user_id = :userId AND idempotency_key = :key AND expires_at > CURRENT_TIMESTAMP")
+    Mono<IdempotencyRecord> findLive(UUID userId, String key);
+    
+    /**
+     * Claims a key for a new request with a short in-progress lease. Returns 1 when the key was free
+     * (or only held by an expired record or lease) and 0 when another request already owns it.
+     */
+    @Modifying
+    @Query("INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, status, expires_at) " +
+           "VALUES (:userId, :key, :requestHash, 'IN_PROGRESS', CURRENT_TIMESTAMP + :leaseSeconds * INTERVAL '1 second') " +
+           "ON CONFLICT (user_id, idempotency_key) DO UPDATE " +
+           "SET request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', response_status = NULL, response_body = NULL, " +
+           "    created_at = CURRENT_TIMESTAMP, expires_at = EXCLUDED.expires_at " +
+           "WHERE idempotency_keys.expires_at <= CURRENT_TIMESTAMP")
+    Mono<Integer> claim(UUID userId, String key, String requestHash, long leaseSeconds);
+    
+    /**
+     * Stores the response and extends the record from the in-progress lease to the full retention.
+     */
+    @Modifying
+    @Query("UPDATE idempotency_keys SET status = 'COMPLETED', response_status = :responseStatus, response_body = :responseBody, " +
+           "    expires_at = CURRENT_TIMESTAMP + :ttlSeconds * INTERVAL '1 second' " +
+           "WHERE user_id = :userId AND idempotency_key = :key")
+    Mono<Integer> complete(UUID userId, String key, int responseStatus, String responseBody, long ttlSeconds);
+    
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE id IN (" +
+           "    SELECT id FROM idempotency_keys WHERE expires_at <= CURRENT_TIMESTAMP " +
+           "    ORDER BY expires_at LIMIT :batchSize FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteExpired(int batchSize);
+}
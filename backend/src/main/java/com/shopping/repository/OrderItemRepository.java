@@ -7,13 +7,21 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
-public interface OrderItemRepository extends R2dbcRepository<OrderItem, UUID> {
+public interface OrderItemRepository extends R2dbcRepository<OrderItem, UUID>, OrderItemRepositoryCustom {
     
     Flux<OrderItem> findByOrderId(UUID orderId);
     
+    @Query("SELECT * FROM order_items WHERE order_id = :orderId AND created_at BETWEEN :from AND :to")
+    Flux<OrderItem> findByOrderIdCreatedBetween(UUID orderId, LocalDateTime from, LocalDateTime to);
+    
+    @Query("SELECT * FROM order_items WHERE order_id IN (:orderIds)")
+    Flux<OrderItem> findByOrderIdIn(Collection<UUID> orderIds);
+    
     @Query("SELECT * FROM order_items WHERE product_id = :productId")
     Flux<OrderItem> findByProductId(UUID productId);
     
@@ -0,0 +1,29 @@
+package com.shopping.repository;
+
+import com.shopping.dto.OrderLineDto;
+import com.shopping.model.OrderItem;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OrderItemRepositoryCustom {
+    
+    /**
+     * Inserts all items with a single multi-row INSERT and returns the number of rows written.
+     * Items must already carry their ids and their order's {@code createdAt}, which is also their
+     * partition key.
+     */
+    Mono<Long> insertAll(List<OrderItem> items);
+    
+    /**
+     * Loads the items of several orders with one {@code order_id = ANY(...)} query, optionally joined
+     * with the product name. {@code from}/{@code to} are the oldest and newest {@code created_at} of
+     * those orders and restrict the scan to the matching partitions.
+     */
+    Flux<OrderLineDto> findLinesByOrderIds(Collection<UUID> orderIds, LocalDateTime from, LocalDateTime to,
+                                           boolean includeProductNames);
+}
@@ -0,0 +1,89 @@
+package com.shopping.repository;
+
+import com.shopping.dto.OrderLineDto;
+import com.shopping.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+    
+    private static final String LINES_SQL =
+        "SELECT oi.id, oi.order_id, oi.product_id, NULL AS product_name, oi.quantity, oi.unit_price, oi.total_price " +
+        "FROM order_items oi WHERE oi.order_id = ANY(:orderIds) AND oi.created_at BETWEEN :from AND :to";
+    
+    private static final String LINES_WITH_PRODUCT_SQL =
+        "SELECT oi.id, oi.order_id, oi.product_id, p.name AS product_name, oi.quantity, oi.unit_price, oi.total_price " +
+        "FROM order_items oi LEFT JOIN products p ON p.id = oi.product_id " +
+        "WHERE oi.order_id = ANY(:orderIds) AND oi.created_at BETWEEN :from AND :to";
+    
+    private final DatabaseClient databaseClient;
+    
+    @Override
+    public Mono<Long> insertAll(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total_price, created_at) VALUES ");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                .append(", :orderId").append(i)
+                .append(", :productId").append(i)
+                .append(", :quantity").append(i)
+                .append(", :unitPrice").append(i)
+                .append(", :totalPrice").append(i)
+                .append(", :createdAt").append(i)
+                .append(')');
+        }
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            spec = spec.bind("id" + i, item.getId())
+                .bind("orderId" + i, item.getOrderId())
+                .bind("productId" + i, item.getProductId())
+                .bind("quantity" + i, item.getQuantity())
+                .bind("unitPrice" + i, item.getUnitPrice())
+                .bind("totalPrice" + i, item.getTotalPrice())
+                .bind("createdAt" + i, item.getCreatedAt());
+        }
+        
+        return spec.fetch().rowsUpdated();
+    }
+    
+    @Override
+    public Flux<OrderLineDto> findLinesByOrderIds(Collection<UUID> orderIds, LocalDateTime from, LocalDateTime to,
+                                                  boolean includeProductNames) {
+        if (orderIds.isEmpty()) {
+            return Flux.empty();
+        }
+        
+        return databaseClient.sql(includeProductNames ? LINES_WITH_PRODUCT_SQL : LINES_SQL)
+            .bind("orderIds", orderIds.toArray(new UUID[0]))
+            .bind("from", from)
+            .bind("to", to)
+            .map((row, metadata) -> OrderLineDto.builder()
+                .id(row.get("id", UUID.class))
+                .orderId(row.get("order_id", UUID.class))
+                .productId(row.get("product_id", UUID.class))
+                .productName(row.get("product_name", String.class))
+                .quantity(row.get("quantity", Integer.class))
+                .unitPrice(row.get("unit_price", BigDecimal.class))
+                .totalPrice(row.get("total_price", BigDecimal.class))
+                .build())
+            .all();
+    }
+}
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Repository
-public interface OrderRepository extends R2dbcRepository<Order, UUID> {
+public interface OrderRepository extends R2dbcRepository<Order, UUID>, OrderRepositoryCustom {
     
     Flux<Order> findByUserId(UUID userId);
     
@@ -35,6 +35,22 @@ public interface OrderRepository extends R2dbcRepository<Order, UUID> {
     @Query("SELECT COUNT(*) FROM orders WHERE status = :status")
     Mono<Long> countByStatus(Order.OrderStatus status);
     
-    @Query("SELECT * FROM orders ORDER BY created_at DESC LIMIT :limit OFFSET :offset")
+    @Query("SELECT * FROM orders WHERE id = :id AND created_at BETWEEN :from AND :to")
+    Mono<Order> findByIdCreatedBetween(UUID id, LocalDateTime from, LocalDateTime to);
+    
+    @Query("SELECT * FROM orders WHERE user_id = :userId ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Order> findHistoryFirstPage(UUID userId, int limit);
+    
+    @Query("SELECT * FROM orders WHERE user_id = :userId AND (created_at, id) < (:beforeCreatedAt, :beforeId) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<Order> findHistoryPageBefore(UUID userId, LocalDateTime beforeCreatedAt, UUID beforeId, int limit);
+    
+    @Query("SELECT ensure_order_partitions(:monthsAhead)")
+    Mono<Integer> ensurePartitions(int monthsAhead);
+    
+    @Query("SELECT archive_order_partitions(:keepMonths)")
+    Mono<Integer> archivePartitions(int keepMonths);
+    
+    @Query("SELECT * FROM orders ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset")
     Flux<Order> findAllWithPagination(int limit, int offset);
 }
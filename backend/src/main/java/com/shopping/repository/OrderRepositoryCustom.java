@@ -0,0 +1,41 @@
+package com.shopping.repository;
+
+import com.shopping.model.Order;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface OrderRepositoryCustom {
+    
+    /**
+     * Counts orders per (status, payment status) pair with a single grouped scan.
+     */
+    Flux<StatusCount> countGroupedByStatus();
+    
+    /**
+     * Streams orders created in {@code [from, to)} joined with their items, oldest first, fetching
+     * {@code fetchSize} rows per round trip so the result is never materialized.
+     */
+    Flux<ExportRow> streamWithItems(LocalDateTime from, LocalDateTime to, int fetchSize);
+    
+    /**
+     * Moves every order of {@code orderIds} that is still cancellable (PENDING or CONFIRMED) to
+     * CANCELLED with one conditional UPDATE, locking the rows in id order. Returns the cancelled
+     * orders with the status they had before; orders in any other state are left untouched.
+     */
+    Flux<CancelledOrder> cancelIfCancellable(Collection<UUID> orderIds);
+    
+    record StatusCount(Order.OrderStatus status, Order.PaymentStatus paymentStatus, long count) {
+    }
+    
+    record CancelledOrder(UUID orderId, Order.OrderStatus previousStatus) {
+    }
+    
+    record ExportRow(UUID orderId, String orderNumber, LocalDateTime createdAt, UUID userId, String status,
+                     String paymentStatus, BigDecimal totalAmount, UUID productId, String productName,
+                     Integer quantity, BigDecimal unitPrice, BigDecimal lineTotal) {
+    }
+}
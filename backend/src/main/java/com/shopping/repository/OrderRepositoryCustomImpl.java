@@ -0,0 +1,82 @@
+package com.shopping.repository;
+
+import com.shopping.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    
+    private static final String STATUS_COUNTS_SQL =
+        "SELECT status, payment_status, COUNT(*) AS order_count FROM orders GROUP BY status, payment_status";
+    
+    private static final String CANCEL_SQL =
+        "UPDATE orders o SET status = 'CANCELLED', updated_at = CURRENT_TIMESTAMP " +
+        "FROM (SELECT id, status FROM orders WHERE id IN (:orderIds) AND status IN ('PENDING', 'CONFIRMED') " +
+        "      ORDER BY id FOR UPDATE) prev " +
+        "WHERE o.id = prev.id " +
+        "RETURNING o.id, prev.status AS previous_status";
+    
+    private static final String EXPORT_SQL =
+        "SELECT o.id, o.order_number, o.created_at, o.user_id, o.status, o.payment_status, o.total_amount, " +
+        "oi.product_id, p.name AS product_name, oi.quantity, oi.unit_price, oi.total_price " +
+        "FROM orders o " +
+        "LEFT JOIN order_items oi ON oi.order_id = o.id AND oi.created_at = o.created_at " +
+        "LEFT JOIN products p ON p.id = oi.product_id " +
+        "WHERE o.created_at >= :from AND o.created_at < :to " +
+        "ORDER BY o.created_at, o.id";
+    
+    private final DatabaseClient databaseClient;
+    
+    @Override
+    public Flux<StatusCount> countGroupedByStatus() {
+        return databaseClient.sql(STATUS_COUNTS_SQL)
+            .map((row, metadata) -> new StatusCount(
+                Order.OrderStatus.valueOf(row.get("status", String.class)),
+                Order.PaymentStatus.valueOf(row.get("payment_status", String.class)),
+                row.get("order_count", Long.class)))
+            .all();
+    }
+    
+    @Override
+    public Flux<CancelledOrder> cancelIfCancellable(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Flux.empty();
+        }
+        
+        return databaseClient.sql(CANCEL_SQL)
+            .bind("orderIds", orderIds)
+            .map((row, metadata) -> new CancelledOrder(
+                row.get("id", UUID.class),
+                Order.OrderStatus.valueOf(row.get("previous_status", String.class))))
+            .all();
+    }
+    
+    @Override
+    public Flux<ExportRow> streamWithItems(LocalDateTime from, LocalDateTime to, int fetchSize) {
+        return databaseClient.sql(EXPORT_SQL)
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .bind("from", from)
+            .bind("to", to)
+            .map((row, metadata) -> new ExportRow(
+                row.get("id", UUID.class),
+                row.get("order_number", String.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("user_id", UUID.class),
+                row.get("status", String.class),
+                row.get("payment_status", String.class),
+                row.get("total_amount", BigDecimal.class),
+                row.get("product_id", UUID.class),
+                row.get("product_name", String.class),
+                row.get("quantity", Integer.class),
+                row.get("unit_price", BigDecimal.class),
+                row.get("total_price", BigDecimal.class)))
+            .all();
+    }
+}
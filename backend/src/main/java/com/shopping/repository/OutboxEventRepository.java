@@ -0,0 +1,57 @@
+package com.shopping.repository;
+
+import com.shopping.model.OutboxEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface OutboxEventRepository extends R2dbcRepository<OutboxEvent, Long> {
+    
+    /**
+     * Leases up to {@code limit} due events to the caller: their next attempt is pushed
+     * {@code leaseSeconds} into the future so other relays skip them, and a relay that dies mid-batch
+     * only delays redelivery until the lease runs out.
+     */
+    @Query("UPDATE outbox_events SET attempts = attempts + 1, " +
+           "    next_attempt_at = CURRENT_TIMESTAMP + :leaseSeconds * INTERVAL '1 second' " +
+           "WHERE id IN (" +
+           "    SELECT id FROM outbox_events WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP " +
+           "    ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+           "RETURNING *")
+    Flux<OutboxEvent> leaseDue(int limit, long leaseSeconds);
+    
+    @Modifying
+    @Query("UPDATE outbox_events SET status = 'PUBLISHED', published_at = CURRENT_TIMESTAMP, last_error = NULL " +
+           "WHERE id IN (:ids)")
+    Mono<Integer> markPublished(Collection<Long> ids);
+    
+    /**
+     * Schedules a retry after {@code retryDelaySeconds}, or parks the event as FAILED once it has
+     * been attempted {@code maxAttempts} times.
+     */
+    @Modifying
+    @Query("UPDATE outbox_events SET last_error = :error, " +
+           "    next_attempt_at = CURRENT_TIMESTAMP + :retryDelaySeconds * INTERVAL '1 second', " +
+           "    status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END " +
+           "WHERE id = :id")
+    Mono<Integer> markFailed(Long id, String error, long retryDelaySeconds, int maxAttempts);
+    
+    @Query("SELECT COUNT(*) FROM outbox_events WHERE status = 'PENDING'")
+    Mono<Long> countPending();
+    
+    @Query("SELECT created_at FROM outbox_events WHERE status = 'PENDING' ORDER BY id LIMIT 1")
+    Mono<LocalDateTime> findOldestPendingCreatedAt();
+    
+    @Modifying
+    @Query("DELETE FROM outbox_events WHERE id IN (" +
+           "    SELECT id FROM outbox_events WHERE status = 'PUBLISHED' AND published_at < :cutoff " +
+           "    LIMIT :batchSize FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deletePublishedBefore(LocalDateTime cutoff, int batchSize);
+}
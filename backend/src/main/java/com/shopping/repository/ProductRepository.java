@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Repository
-public interface ProductRepository extends R2dbcRepository<Product, UUID> {
+public interface ProductRepository extends R2dbcRepository<Product, UUID>, ProductRepositoryCustom {
     
     @Query("SELECT * FROM products WHERE is_active = true")
     Flux<Product> findAllActive();
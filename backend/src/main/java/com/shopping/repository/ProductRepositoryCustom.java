@@ -0,0 +1,36 @@
+package com.shopping.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public interface ProductRepositoryCustom {
+    
+    /**
+     * Decrements the stock of every product in {@code quantities} with a single set-based UPDATE.
+     * A product is only decremented when its stock, minus live reservations held by other carts,
+     * covers the requested quantity, so callers compare the returned row count with the number of
+     * products to detect insufficient stock.
+     */
+    Mono<Long> decrementStock(Map<UUID, Integer> quantities, UUID cartId);
+    
+    /**
+     * Gives back the stock held by the items of {@code orderIds} with a single UPDATE joined to
+     * {@code order_items}, locking the product rows in id order like {@link #decrementStock}.
+     */
+    Mono<Long> restoreStock(Collection<UUID> orderIds);
+    
+    /**
+     * Adds {@code quantities} back to the products' stock with a single UPDATE, for callers that no
+     * longer have the order items in the same database (sharded orders).
+     */
+    Mono<Long> incrementStock(Map<UUID, Integer> quantities);
+    
+    /**
+     * Locks, in id order, every product in the carts of {@code userIds}; used by checkout batches so
+     * the orders placed afterwards in the same transaction never wait on another batch's locks.
+     */
+    Mono<Long> lockProductsInCarts(Collection<UUID> userIds);
+}
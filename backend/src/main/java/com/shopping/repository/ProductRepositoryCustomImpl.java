@@ -0,0 +1,123 @@
+package com.shopping.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    
+    private static final String RESTORE_STOCK_SQL =
+        "WITH restored AS (" +
+        "    SELECT product_id, SUM(quantity) AS quantity FROM order_items WHERE order_id IN (:orderIds) GROUP BY product_id), " +
+        "locked AS (SELECT p.id FROM products p JOIN restored r ON r.product_id = p.id ORDER BY p.id FOR UPDATE OF p) " +
+        "UPDATE products p SET stock_quantity = p.stock_quantity + r.quantity " +
+        "FROM restored r JOIN locked l ON l.id = r.product_id " +
+        "WHERE p.id = r.product_id";
+    
+    private static final String LOCK_CART_PRODUCTS_SQL =
+        "SELECT p.id FROM products p WHERE p.id IN (" +
+        "    SELECT ci.product_id FROM cart_items ci JOIN shopping_carts c ON c.id = ci.cart_id " +
+        "    WHERE c.user_id IN (:userIds)) " +
+        "ORDER BY p.id FOR UPDATE";
+    
+    private final DatabaseClient databaseClient;
+    
+    @Override
+    public Mono<Long> decrementStock(Map<UUID, Integer> quantities, UUID cartId) {
+        if (quantities.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        // Lock rows in id order so concurrent checkouts touching the same products cannot deadlock
+        List<Map.Entry<UUID, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        lines.sort(Map.Entry.comparingByKey());
+        
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append("(CAST(:productId").append(i).append(" AS UUID), CAST(:quantity").append(i).append(" AS INTEGER))");
+        }
+        
+        String sql = "WITH d(product_id, quantity) AS (VALUES " + values + "), " +
+            "locked AS (SELECT p.id FROM products p JOIN d ON d.product_id = p.id ORDER BY p.id FOR UPDATE OF p) " +
+            "UPDATE products p SET stock_quantity = p.stock_quantity - d.quantity " +
+            "FROM d JOIN locked l ON l.id = d.product_id " +
+            "WHERE p.id = d.product_id AND p.stock_quantity - COALESCE((" +
+            "    SELECT SUM(r.quantity) FROM stock_reservations r " +
+            "    WHERE r.product_id = p.id AND r.cart_id <> :cartId AND r.expires_at > CURRENT_TIMESTAMP), 0) >= d.quantity";
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("cartId", cartId);
+        for (int i = 0; i < lines.size(); i++) {
+            spec = spec.bind("productId" + i, lines.get(i).getKey())
+                .bind("quantity" + i, lines.get(i).getValue());
+        }
+        
+        return spec.fetch().rowsUpdated();
+    }
+    
+    @Override
+    public Mono<Long> restoreStock(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        return databaseClient.sql(RESTORE_STOCK_SQL)
+            .bind("orderIds", orderIds)
+            .fetch()
+            .rowsUpdated();
+    }
+    
+    @Override
+    public Mono<Long> incrementStock(Map<UUID, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        List<Map.Entry<UUID, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        lines.sort(Map.Entry.comparingByKey());
+        
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append("(CAST(:productId").append(i).append(" AS UUID), CAST(:quantity").append(i).append(" AS INTEGER))");
+        }
+        
+        String sql = "WITH d(product_id, quantity) AS (VALUES " + values + "), " +
+            "locked AS (SELECT p.id FROM products p JOIN d ON d.product_id = p.id ORDER BY p.id FOR UPDATE OF p) " +
+            "UPDATE products p SET stock_quantity = p.stock_quantity + d.quantity " +
+            "FROM d JOIN locked l ON l.id = d.product_id " +
+            "WHERE p.id = d.product_id";
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (int i = 0; i < lines.size(); i++) {
+            spec = spec.bind("productId" + i, lines.get(i).getKey())
+                .bind("quantity" + i, lines.get(i).getValue());
+        }
+        
+        return spec.fetch().rowsUpdated();
+    }
+    
+    @Override
+    public Mono<Long> lockProductsInCarts(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        return databaseClient.sql(LOCK_CART_PRODUCTS_SQL)
+            .bind("userIds", userIds)
+            .fetch()
+            .all()
+            .count();
+    }
+}
@@ -0,0 +1,30 @@
+package com.shopping.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Replication state as seen from a standby; must be run against the replica.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReplicationStatusRepository {
+    
+    // A standby that has replayed everything it received is current even if the primary is idle
+    private static final String REPLAY_LAG_SQL =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END AS lag_seconds";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<Duration> findReplayLag() {
+        return databaseClient.sql(REPLAY_LAG_SQL)
+            .map((row, metadata) -> row.get("lag_seconds", Number.class))
+            .one()
+            .map(seconds -> Duration.ofMillis(Math.round(seconds.doubleValue() * 1000)));
+    }
+}
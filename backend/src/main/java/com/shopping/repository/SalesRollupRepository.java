@@ -0,0 +1,136 @@
+package com.shopping.repository;
+
+import com.shopping.dto.SalesRollupDto;
+import com.shopping.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hourly and daily sales aggregates per product and per category
+ * ({@code sales_rollup_hourly} / {@code sales_rollup_daily}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+    
+    public enum Granularity {
+        HOUR("sales_rollup_hourly"), DAY("sales_rollup_daily");
+        
+        private final String table;
+        
+        Granularity(String table) {
+            this.table = table;
+        }
+    }
+    
+    public enum Dimension {
+        PRODUCT, CATEGORY
+    }
+    
+    private static final String UPSERT_TEMPLATE =
+        "INSERT INTO %1$s AS r (bucket, dimension, dimension_id, units, revenue, order_count) " +
+        "SELECT date_trunc('%2$s', CAST(:at AS TIMESTAMP)), dimension, dimension_id, :sign * units, :sign * revenue, :sign " +
+        "FROM deltas ORDER BY dimension, dimension_id " +
+        "ON CONFLICT (dimension, bucket, dimension_id) DO UPDATE SET " +
+        "units = r.units + EXCLUDED.units, revenue = r.revenue + EXCLUDED.revenue, order_count = r.order_count + EXCLUDED.order_count";
+    
+    private final DatabaseClient databaseClient;
+    
+    /**
+     * Adds ({@code sign = 1}) or removes ({@code sign = -1}) one order's items in the hour and day
+     * buckets of {@code orderedAt}, for every product and category involved, with a single statement.
+     */
+    public Mono<Long> apply(List<OrderItem> items, LocalDateTime orderedAt, int sign) {
+        if (items.isEmpty()) {
+            return Mono.just(0L);
+        }
+        
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append("(CAST(:productId").append(i).append(" AS UUID), CAST(:quantity").append(i)
+                .append(" AS INTEGER), CAST(:revenue").append(i).append(" AS DECIMAL(14,2)))");
+        }
+        
+        String sql = "WITH lines(product_id, quantity, revenue) AS (VALUES " + values + "), " +
+            "per_product AS (SELECT l.product_id, p.category_id, SUM(l.quantity) AS units, SUM(l.revenue) AS revenue " +
+            "    FROM lines l LEFT JOIN products p ON p.id = l.product_id GROUP BY l.product_id, p.category_id), " +
+            "deltas AS (SELECT 'PRODUCT' AS dimension, product_id AS dimension_id, units, revenue FROM per_product " +
+            "    UNION ALL SELECT 'CATEGORY', category_id, SUM(units), SUM(revenue) FROM per_product " +
+            "    WHERE category_id IS NOT NULL GROUP BY category_id), " +
+            "hourly AS (" + String.format(UPSERT_TEMPLATE, Granularity.HOUR.table, "hour") + ") " +
+            String.format(UPSERT_TEMPLATE, Granularity.DAY.table, "day");
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+            .bind("at", orderedAt)
+            .bind("sign", sign);
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            spec = spec.bind("productId" + i, item.getProductId())
+                .bind("quantity" + i, item.getQuantity())
+                .bind("revenue" + i, item.getTotalPrice());
+        }
+        
+        return spec.fetch().rowsUpdated();
+    }
+    
+    /**
+     * Records that the rollup change of {@code eventType} for the order was applied; returns
+     * {@code false} when it already was, so a redelivered outbox event is not counted twice.
+     */
+    public Mono<Boolean> markApplied(UUID orderId, String eventType) {
+        return databaseClient.sql("INSERT INTO sales_rollup_applied_events (order_id, event_type) VALUES (:orderId, :eventType) " +
+                "ON CONFLICT DO NOTHING")
+            .bind("orderId", orderId)
+            .bind("eventType", eventType)
+            .fetch()
+            .rowsUpdated()
+            .map(rows -> rows > 0);
+    }
+    
+    public Mono<Integer> deleteAppliedBefore(LocalDateTime cutoff, int batchSize) {
+        return databaseClient.sql("DELETE FROM sales_rollup_applied_events WHERE (order_id, event_type) IN (" +
+                "SELECT order_id, event_type FROM sales_rollup_applied_events WHERE applied_at < :cutoff LIMIT :batchSize)")
+            .bind("cutoff", cutoff)
+            .bind("batchSize", batchSize)
+            .fetch()
+            .rowsUpdated()
+            .map(Long::intValue);
+    }
+    
+    public Flux<SalesRollupDto> findRange(Granularity granularity, Dimension dimension, UUID dimensionId,
+                                          LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT bucket, dimension, dimension_id, units, revenue, order_count FROM " + granularity.table +
+            " WHERE dimension = :dimension AND bucket >= :from AND bucket < :to" +
+            (dimensionId != null ? " AND dimension_id = :dimensionId" : "") +
+            " ORDER BY bucket, dimension_id";
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+            .bind("dimension", dimension.name())
+            .bind("from", from)
+            .bind("to", to);
+        if (dimensionId != null) {
+            spec = spec.bind("dimensionId", dimensionId);
+        }
+        
+        return spec.map((row, metadata) -> SalesRollupDto.builder()
+                .bucket(row.get("bucket", LocalDateTime.class))
+                .dimension(row.get("dimension", String.class))
+                .dimensionId(row.get("dimension_id", UUID.class))
+                .units(row.get("units", Long.class))
+                .revenue(row.get("revenue", BigDecimal.class))
+                .orderCount(row.get("order_count", Long.class))
+                .build())
+            .all();
+    }
+}
@@ -1,11 +1,15 @@
 package com.shopping.repository;
 
 import com.shopping.model.ShoppingCart;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -17,4 +21,25 @@ public interface ShoppingCartRepository extends R2dbcRepository<ShoppingCart, UU
     Mono<Void> deleteByUserId(UUID userId);
     
     Mono<Boolean> existsByUserId(UUID userId);
+    
+    @Modifying
+    @Query("UPDATE shopping_carts SET version = version + 1 WHERE id = :cartId")
+    Mono<Integer> incrementVersion(UUID cartId);
+    
+    /**
+     * Keyset page of carts idle since before {@code cutoff}, ordered by (updated_at, id) and
+     * starting strictly after the given cursor.
+     */
+    @Query("SELECT * FROM shopping_carts " +
+           "WHERE updated_at < :cutoff AND (updated_at, id) > (:afterUpdatedAt, :afterId) " +
+           "ORDER BY updated_at, id LIMIT :limit")
+    Flux<ShoppingCart> findIdleAfter(LocalDateTime cutoff, LocalDateTime afterUpdatedAt, UUID afterId, int limit);
+    
+    /**
+     * Deletes the given carts (items and reservations cascade) unless they were touched again
+     * after {@code cutoff}.
+     */
+    @Modifying
+    @Query("DELETE FROM shopping_carts WHERE id IN (:ids) AND updated_at < :cutoff")
+    Mono<Integer> deleteIdleByIds(Collection<UUID> ids, LocalDateTime cutoff);
 }
@@ -0,0 +1,61 @@
+package com.shopping.repository;
+
+import com.shopping.model.StockReservation;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public interface StockReservationRepository extends R2dbcRepository<StockReservation, UUID> {
+    
+    Flux<StockReservation> findByCartId(UUID cartId);
+    
+    /**
+     * Locks the product row for the rest of the transaction, so holds on the same product are placed
+     * one at a time. Must run before {@link #reserve} in the same transaction.
+     */
+    @Query("SELECT id FROM products WHERE id = :productId FOR UPDATE")
+    Mono<UUID> lockProduct(UUID productId);
+    
+    /**
+     * Creates or replaces the hold of a cart line, but only if the product still has enough stock
+     * once the live holds of every other cart are subtracted. Returns 0 when the stock is insufficient.
+     * Runs as its own statement after {@link #lockProduct}, so under READ COMMITTED it sees every hold
+     * committed before the lock was granted.
+     */
+    @Modifying
+    @Query("INSERT INTO stock_reservations (cart_id, product_id, quantity, expires_at) " +
+           "SELECT :cartId, p.id, :quantity, CURRENT_TIMESTAMP + :ttlSeconds * INTERVAL '1 second' " +
+           "FROM products p " +
+           "WHERE p.id = :productId AND p.stock_quantity - COALESCE((" +
+           "    SELECT SUM(r.quantity) FROM stock_reservations r " +
+           "    WHERE r.product_id = p.id AND r.cart_id <> :cartId AND r.expires_at > CURRENT_TIMESTAMP), 0) >= :quantity " +
+           "ON CONFLICT (cart_id, product_id) DO UPDATE " +
+           "SET quantity = EXCLUDED.quantity, expires_at = EXCLUDED.expires_at")
+    Mono<Integer> reserve(UUID cartId, UUID productId, int quantity, long ttlSeconds);
+    
+    @Query("SELECT p.stock_quantity - COALESCE((" +
+           "    SELECT SUM(r.quantity) FROM stock_reservations r " +
+           "    WHERE r.product_id = p.id AND r.cart_id <> :cartId AND r.expires_at > CURRENT_TIMESTAMP), 0) " +
+           "FROM products p WHERE p.id = :productId")
+    Mono<Long> getAvailableStockForCart(UUID productId, UUID cartId);
+    
+    @Modifying
+    @Query("DELETE FROM stock_reservations WHERE cart_id = :cartId AND product_id = :productId")
+    Mono<Integer> deleteByCartIdAndProductId(UUID cartId, UUID productId);
+    
+    @Modifying
+    @Query("DELETE FROM stock_reservations WHERE cart_id = :cartId")
+    Mono<Integer> deleteByCartId(UUID cartId);
+    
+    @Modifying
+    @Query("DELETE FROM stock_reservations WHERE id IN (" +
+           "    SELECT id FROM stock_reservations WHERE expires_at <= CURRENT_TIMESTAMP " +
+           "    ORDER BY expires_at LIMIT :batchSize FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteExpired(int batchSize);
+}
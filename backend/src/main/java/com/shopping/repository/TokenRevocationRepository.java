@@ -0,0 +1,97 @@
+package com.shopping.repository;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Persisted JWT deny-list ({@code token_revocations}). Entries are kept until every token they can
+ * match has expired.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TokenRevocationRepository {
+    
+    public enum Kind {
+        TOKEN, USER
+    }
+    
+    public record Revocation(Kind kind, UUID subjectId, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+    }
+    
+    private static final String COLUMNS = "SELECT kind, subject_id, revoked_at, expires_at FROM token_revocations ";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Mono<Void> save(Revocation revocation) {
+        return databaseClient.sql(
+                "INSERT INTO token_revocations (kind, subject_id, revoked_at, expires_at) " +
+                "VALUES (:kind, :subjectId, :revokedAt, :expiresAt) " +
+                "ON CONFLICT (kind, subject_id) DO UPDATE SET " +
+                "revoked_at = GREATEST(token_revocations.revoked_at, EXCLUDED.revoked_at), " +
+                "expires_at = GREATEST(token_revocations.expires_at, EXCLUDED.expires_at)")
+            .bind("kind", revocation.kind().name())
+            .bind("subjectId", revocation.subjectId())
+            .bind("revokedAt", revocation.revokedAt())
+            .bind("expiresAt", revocation.expiresAt())
+            .fetch()
+            .rowsUpdated()
+            .then();
+    }
+    
+    /**
+     * Live entries that apply to a token: its own jti (when it has one) or its user.
+     */
+    public Flux<Revocation> findForToken(UUID tokenId, UUID userId, LocalDateTime now) {
+        if (tokenId == null) {
+            return databaseClient.sql(COLUMNS + "WHERE kind = 'USER' AND subject_id = :userId AND expires_at > :now")
+                .bind("userId", userId)
+                .bind("now", now)
+                .map((row, metadata) -> toRevocation(row))
+                .all();
+        }
+        return databaseClient.sql(COLUMNS +
+                "WHERE ((kind = 'TOKEN' AND subject_id = :tokenId) OR (kind = 'USER' AND subject_id = :userId)) " +
+                "AND expires_at > :now")
+            .bind("tokenId", tokenId)
+            .bind("userId", userId)
+            .bind("now", now)
+            .map((row, metadata) -> toRevocation(row))
+            .all();
+    }
+    
+    public Flux<Revocation> findLive(LocalDateTime now) {
+        return databaseClient.sql(COLUMNS + "WHERE expires_at > :now")
+            .bind("now", now)
+            .map((row, metadata) -> toRevocation(row))
+            .all();
+    }
+    
+    public Flux<Revocation> findRevokedSince(LocalDateTime since) {
+        return databaseClient.sql(COLUMNS + "WHERE revoked_at >= :since")
+            .bind("since", since)
+            .map((row, metadata) -> toRevocation(row))
+            .all();
+    }
+    
+    public Mono<Long> deleteExpired(LocalDateTime now) {
+        return databaseClient.sql("DELETE FROM token_revocations WHERE expires_at <= :now")
+            .bind("now", now)
+            .fetch()
+            .rowsUpdated();
+    }
+    
+    private static Revocation toRevocation(Row row) {
+        return new Revocation(
+            Kind.valueOf(row.get("kind", String.class)),
+            row.get("subject_id", UUID.class),
+            row.get("revoked_at", LocalDateTime.class),
+            row.get("expires_at", LocalDateTime.class));
+    }
+}
@@ -16,6 +16,17 @@ public interface UserRepository extends R2dbcRepository<User, UUID> {
     
     Mono<Boolean> existsByEmail(String email);
     
+    /**
+     * Inserts the user unless the email is already taken; empty when the unique constraint on
+     * {@code users.email} rejected the row, so concurrent registrations settle in one statement.
+     */
+    @Query("INSERT INTO users (id, email, password_hash, first_name, last_name, phone, role, is_active) " +
+           "VALUES (:id, :email, :passwordHash, :firstName, :lastName, :phone, :role, :isActive) " +
+           "ON CONFLICT (email) DO NOTHING " +
+           "RETURNING *")
+    Mono<User> insertIfEmailAbsent(UUID id, String email, String passwordHash, String firstName, String lastName,
+                                   String phone, String role, boolean isActive);
+    
     @Query("SELECT * FROM users WHERE is_active = true")
     Flux<User> findAllActive();
     
@@ -0,0 +1,114 @@
+package com.shopping.service;
+
+import com.shopping.model.ShoppingCart;
+import com.shopping.repository.ShoppingCartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically deletes carts that have been idle for longer than {@code app.cart.cleanup.idle-days}.
+ *
+ * Carts are walked in small keyset-paginated batches on (updated_at, id) and the job pauses between
+ * batches so it never holds more than one short delete at a time against live cart traffic.
+ */
+@Slf4j
+@Service
+public class AbandonedCartCleanupJob {
+    
+    private static final LocalDateTime START_UPDATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID START_ID = new UUID(0L, 0L);
+    
+    private final ShoppingCartRepository cartRepository;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final Counter deletedCounter;
+    private final Counter batchCounter;
+    private final Timer runTimer;
+    
+    @Value("${app.cart.cleanup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.cart.cleanup.idle-days:30}")
+    private int idleDays;
+    
+    @Value("${app.cart.cleanup.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${app.cart.cleanup.batches-per-second:5}")
+    private int batchesPerSecond;
+    
+    public AbandonedCartCleanupJob(ShoppingCartRepository cartRepository, MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.deletedCounter = Counter.builder("cart.cleanup.deleted")
+            .description("Abandoned carts deleted by the cleanup job")
+            .register(meterRegistry);
+        this.batchCounter = Counter.builder("cart.cleanup.batches")
+            .description("Batches processed by the cleanup job")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("cart.cleanup.duration")
+            .description("Duration of a full cleanup run")
+            .register(meterRegistry);
+        meterRegistry.gauge("cart.cleanup.last.run.deleted", lastRunDeleted);
+    }
+    
+    @Scheduled(cron = "${app.cart.cleanup.cron:0 30 3 * * *}")
+    public Mono<Void> deleteAbandonedCarts() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(idleDays);
+        Duration pause = Duration.ofMillis(1000L / Math.max(1, batchesPerSecond));
+        long startNanos = System.nanoTime();
+        log.info("Starting abandoned cart cleanup for carts idle since {}", cutoff);
+        
+        return deleteBatch(cutoff, START_UPDATED_AT, START_ID)
+            .expand(batch -> batch.selected() < batchSize
+                ? Mono.empty()
+                : Mono.delay(pause).then(deleteBatch(cutoff, batch.lastUpdatedAt(), batch.lastId())))
+            .reduce(0L, (total, batch) -> total + batch.deleted())
+            .doOnNext(total -> {
+                lastRunDeleted.set(total);
+                log.info("Abandoned cart cleanup finished - {} carts deleted", total);
+            })
+            .doFinally(signal -> {
+                runTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+                running.set(false);
+            })
+            .then();
+    }
+    
+    private Mono<CleanupBatch> deleteBatch(LocalDateTime cutoff, LocalDateTime afterUpdatedAt, UUID afterId) {
+        return cartRepository.findIdleAfter(cutoff, afterUpdatedAt, afterId, batchSize)
+            .collectList()
+            .filter(carts -> !carts.isEmpty())
+            .flatMap(carts -> {
+                List<UUID> ids = carts.stream().map(ShoppingCart::getId).toList();
+                ShoppingCart last = carts.get(carts.size() - 1);
+                
+                return cartRepository.deleteIdleByIds(ids, cutoff)
+                    .map(deleted -> {
+                        batchCounter.increment();
+                        deletedCounter.increment(deleted);
+                        log.debug("Deleted {} of {} idle carts", deleted, carts.size());
+                        return new CleanupBatch(last.getUpdatedAt(), last.getId(), carts.size(), deleted);
+                    });
+            });
+    }
+    
+    private record CleanupBatch(LocalDateTime lastUpdatedAt, UUID lastId, int selected, int deleted) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.shopping.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission decisions for login and registration, made before any database or password work.
+ *
+ * Requests are limited per client IP with {@link StripedTokenBuckets}, per email with exact
+ * {@link KeyedTokenBuckets} (emails are free to vary, so a spray must not drain shared stripes and
+ * lock out other accounts), and globally by a concurrency limit that adapts to password hashing
+ * latency (AIMD): it grows by about one slot per round-trip while hashing stays under
+ * {@code target-hash-latency} and shrinks by 10% at most once per round-trip when a hash (queue
+ * wait included) takes longer.
+ */
+@Service
+public class AuthAdmissionService {
+    
+    public enum Rejection {
+        IP_RATE, EMAIL_RATE, CONCURRENCY
+    }
+    
+    private final StripedTokenBuckets ipBuckets;
+    private final KeyedTokenBuckets emailBuckets;
+    private final long ipRetryAfterSeconds;
+    private final long emailRetryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+    private final Counter ipRejections;
+    private final Counter emailRejections;
+    private final Counter concurrencyRejections;
+    
+    public AuthAdmissionService(MeterRegistry meterRegistry,
+                                @Value("${app.auth.admission.stripes:16384}") int stripes,
+                                @Value("${app.auth.admission.ip.capacity:20}") int ipCapacity,
+                                @Value("${app.auth.admission.ip.refill-per-second:2}") double ipRefillPerSecond,
+                                @Value("${app.auth.admission.email.capacity:5}") int emailCapacity,
+                                @Value("${app.auth.admission.email.refill-per-second:0.1}") double emailRefillPerSecond,
+                                @Value("${app.auth.admission.email.max-keys:100000}") long emailMaxKeys,
+                                @Value("${app.auth.admission.concurrency.initial:16}") int initialLimit,
+                                @Value("${app.auth.admission.concurrency.min:2}") int minLimit,
+                                @Value("${app.auth.admission.concurrency.max:256}") int maxLimit,
+                                @Value("${app.auth.admission.concurrency.target-hash-latency:250ms}") Duration targetHashLatency) {
+        this.ipBuckets = new StripedTokenBuckets(stripes, ipCapacity, ipRefillPerSecond);
+        this.emailBuckets = new KeyedTokenBuckets(emailMaxKeys, emailCapacity, emailRefillPerSecond);
+        this.ipRetryAfterSeconds = (long) Math.ceil(1 / ipRefillPerSecond);
+        this.emailRetryAfterSeconds = (long) Math.ceil(1 / emailRefillPerSecond);
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetHashLatency.toNanos();
+        this.ipRejections = rejectionCounter(meterRegistry, Rejection.IP_RATE);
+        this.emailRejections = rejectionCounter(meterRegistry, Rejection.EMAIL_RATE);
+        this.concurrencyRejections = rejectionCounter(meterRegistry, Rejection.CONCURRENCY);
+        Gauge.builder("auth.admission.limit", this, AuthAdmissionService::currentLimit)
+            .description("Current adaptive limit of concurrent login/registration requests")
+            .register(meterRegistry);
+        Gauge.builder("auth.admission.inflight", inFlight, AtomicInteger::get)
+            .description("Login/registration requests currently admitted")
+            .register(meterRegistry);
+    }
+    
+    public boolean tryAcquireIp(String clientIp) {
+        if (ipBuckets.tryAcquire(clientIp)) {
+            return true;
+        }
+        ipRejections.increment();
+        return false;
+    }
+    
+    public boolean tryAcquireEmail(String email) {
+        if (emailBuckets.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        emailRejections.increment();
+        return false;
+    }
+    
+    /**
+     * Claims a slot under the adaptive concurrency limit; every successful call must be paired with
+     * {@link #release()}.
+     */
+    public boolean tryAcquireSlot() {
+        if (inFlight.incrementAndGet() <= (int) currentLimit()) {
+            return true;
+        }
+        inFlight.decrementAndGet();
+        concurrencyRejections.increment();
+        return false;
+    }
+    
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+    
+    /**
+     * Feeds one password hashing latency (queue wait plus hashing) into the concurrency limit.
+     */
+    public void recordHashLatency(long nanos) {
+        if (nanos > targetLatencyNanos) {
+            long now = System.nanoTime();
+            long lastDecrease = lastDecreaseNanos.get();
+            // A request that started before the last decrease was admitted under the old limit, so a
+            // burst of slow samples shrinks the limit once rather than once per sample
+            if (now - nanos - lastDecrease < 0 || !lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+                return;
+            }
+        }
+        for (;;) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next = nanos > targetLatencyNanos
+                ? Math.max(minLimit, limit * 0.9)
+                : Math.min(maxLimit, limit + 1.0 / limit);
+            if (next == limit || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Seconds until a rejected client can expect a token again, for the {@code Retry-After} header.
+     */
+    public long retryAfterSeconds(Rejection rejection) {
+        return switch (rejection) {
+            case IP_RATE -> ipRetryAfterSeconds;
+            case EMAIL_RATE -> emailRetryAfterSeconds;
+            case CONCURRENCY -> 1;
+        };
+    }
+    
+    private double currentLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+    
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, Rejection reason) {
+        return Counter.builder("auth.admission.rejected")
+            .description("Login/registration requests rejected with 429")
+            .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry);
+    }
+}
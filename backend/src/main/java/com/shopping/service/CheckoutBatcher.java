@@ -0,0 +1,240 @@
+package com.shopping.service;
+
+import com.shopping.config.ReadReplicaRouter;
+import com.shopping.config.ShardRouter;
+import com.shopping.model.Order;
+import com.shopping.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Optional group commit in front of {@link OrderService#createOrderFromCart}.
+ *
+ * Checkout requests arriving within {@code app.checkout.batching.window-ms} (or until
+ * {@code max-batch-size} are queued) are placed in one database transaction. Each order runs in its
+ * own savepoint, so a failing order is rolled back alone and reported to its caller while the rest of
+ * the batch commits together. Results are only released after the commit.
+ *
+ * A batch first locks every product in its carts in id order, so concurrent batches queue on the
+ * product rows instead of deadlocking across savepoints.
+ */
+@Slf4j
+@Service
+public class CheckoutBatcher {
+    
+    private final OrderService orderService;
+    private final ProductRepository productRepository;
+    private final ShardRouter shardRouter;
+    private final ReadReplicaRouter readReplicaRouter;
+    private final TransactionalOperator batchOperator;
+    private final TransactionalOperator orderOperator;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer queueWaitTimer;
+    private final Timer commitTimer;
+    private final Counter placedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    
+    @Value("${app.checkout.batching.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.checkout.batching.window-ms:2}")
+    private long windowMs;
+    
+    @Value("${app.checkout.batching.max-batch-size:64}")
+    private int maxBatchSize;
+    
+    @Value("${app.checkout.batching.max-concurrent-batches:4}")
+    private int maxConcurrentBatches;
+    
+    @Value("${app.checkout.batching.queue-capacity:4096}")
+    private int queueCapacity;
+    
+    private volatile Queue<CheckoutRequest> pending;
+    private volatile Sinks.Many<CheckoutRequest> requests;
+    private volatile Disposable subscription;
+    
+    public CheckoutBatcher(OrderService orderService, ProductRepository productRepository, ShardRouter shardRouter,
+                           ReadReplicaRouter readReplicaRouter, ReactiveTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.productRepository = productRepository;
+        this.shardRouter = shardRouter;
+        this.readReplicaRouter = readReplicaRouter;
+        this.batchOperator = TransactionalOperator.create(transactionManager);
+        this.orderOperator = TransactionalOperator.create(transactionManager,
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NESTED));
+        this.batchSizeSummary = DistributionSummary.builder("checkout.batch.size")
+            .description("Orders committed per checkout batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("checkout.batch.wait")
+            .description("Time a checkout request waits for its batch to start")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.commitTimer = Timer.builder("checkout.batch.commit")
+            .description("Duration of a checkout batch transaction")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.placedCounter = Counter.builder("checkout.batch.orders").tag("outcome", "placed").register(meterRegistry);
+        this.failedCounter = Counter.builder("checkout.batch.orders").tag("outcome", "failed").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("checkout.batch.orders").tag("outcome", "rejected").register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (enabled && shardRouter.isEnabled()) {
+            // Sharded checkouts span two databases and cannot share one batch transaction
+            log.warn("Checkout batching is not supported with order sharding; disabling it");
+            enabled = false;
+        }
+        if (!enabled) {
+            return;
+        }
+        log.info("Checkout batching enabled: window {}ms, max batch {}, {} concurrent batches",
+            windowMs, maxBatchSize, maxConcurrentBatches);
+        
+        open();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            requests.tryEmitComplete();
+            subscription.dispose();
+        }
+    }
+    
+    private void open() {
+        // A thread-safe bounded queue lets request threads emit without serializing on the sink; when it is
+        // full the emission fails at once and the caller gets 503
+        Queue<CheckoutRequest> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Sinks.Many<CheckoutRequest> sink = Sinks.unsafe().many().unicast().onBackpressureBuffer(queue);
+        pending = queue;
+        requests = sink;
+        subscription = sink.asFlux()
+            // Fair mode holds a full or timed-out buffer until a batch slot frees up instead of erroring
+            .bufferTimeout(maxBatchSize, Duration.ofMillis(windowMs), true)
+            .flatMap(this::commitBatch, maxConcurrentBatches)
+            .doOnDiscard(CheckoutRequest.class, request -> reject(request, "Checkout was interrupted, try again"))
+            .subscribe(null, this::restart);
+    }
+    
+    /**
+     * A unicast sink cannot be subscribed twice, so a failed pipeline is replaced by a fresh one and
+     * the requests still queued in the old one are failed rather than left hanging.
+     */
+    private void restart(Throwable error) {
+        log.error("Checkout batching pipeline failed, restarting it", error);
+        Queue<CheckoutRequest> stranded = pending;
+        open();
+        CheckoutRequest request;
+        while ((request = stranded.poll()) != null) {
+            reject(request, "Checkout was interrupted, try again");
+        }
+    }
+    
+    private void reject(CheckoutRequest request, String reason) {
+        rejectedCounter.increment();
+        request.result().tryEmitError(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, reason));
+    }
+    
+    public Mono<Order> submit(UUID userId, String shippingAddress, String billingAddress, String paymentMethod) {
+        if (!enabled) {
+            return orderService.createOrderFromCart(userId, shippingAddress, billingAddress, paymentMethod);
+        }
+        
+        return Mono.defer(() -> {
+            CheckoutRequest request = new CheckoutRequest(userId, shippingAddress, billingAddress, paymentMethod,
+                Sinks.one(), System.nanoTime());
+            
+            if (requests.tryEmitNext(request).isFailure()) {
+                rejectedCounter.increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout queue is full"));
+            }
+            return request.result().asMono();
+        });
+    }
+    
+    private Mono<Void> commitBatch(List<CheckoutRequest> batch) {
+        long batchStart = System.nanoTime();
+        batchSizeSummary.record(batch.size());
+        batch.forEach(request -> queueWaitTimer.record(Duration.ofNanos(batchStart - request.submittedAt())));
+        
+        Mono<List<CheckoutOutcome>> placeAll = Flux.fromIterable(batch)
+            .concatMap(request -> orderOperator.transactional(orderService.placeOrder(
+                    request.userId(), request.shippingAddress(), request.billingAddress(), request.paymentMethod()))
+                .map(order -> new CheckoutOutcome(request, order, null))
+                .onErrorResume(e -> Mono.just(new CheckoutOutcome(request, null, e))))
+            .collectList();
+        
+        List<UUID> userIds = batch.stream().map(CheckoutRequest::userId).distinct().toList();
+        Mono<List<CheckoutOutcome>> lockAndPlace = productRepository.lockProductsInCarts(userIds).then(placeAll);
+        
+        return batchOperator.transactional(lockAndPlace)
+            .doOnNext(outcomes -> outcomes.forEach(CheckoutOutcome::complete))
+            .doOnError(e -> {
+                log.error("Checkout batch of {} orders failed to commit: {}", batch.size(), e.getMessage());
+                failedCounter.increment(batch.size());
+                batch.forEach(request -> {
+                    readReplicaRouter.recordWrite(request.userId());
+                    request.result().tryEmitError(e);
+                });
+            })
+            .doFinally(signal -> commitTimer.record(Duration.ofNanos(System.nanoTime() - batchStart)))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+    
+    private record CheckoutRequest(UUID userId, String shippingAddress, String billingAddress, String paymentMethod,
+                                   Sinks.One<Order> result, long submittedAt) {
+    }
+    
+    private class CheckoutOutcome {
+        private final CheckoutRequest request;
+        private final Order order;
+        private final Throwable error;
+        
+        CheckoutOutcome(CheckoutRequest request, Order order, Throwable error) {
+            this.request = request;
+            this.order = order;
+            this.error = error;
+        }
+        
+        void complete() {
+            // As in OrderService#createOrderFromCart: the user's next reads must see this checkout
+            readReplicaRouter.recordWrite(request.userId());
+            if (error != null) {
+                failedCounter.increment();
+                request.result().tryEmitError(error);
+            } else {
+                placedCounter.increment();
+                orderService.orderCommitted(order);
+                request.result().tryEmitValue(order);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.shopping.service;
+
+import java.util.UUID;
+
+/**
+ * Source of primary keys for new entities. The implementation is chosen with {@code app.id.uuid-version}.
+ */
+public interface EntityIdGenerator {
+    
+    UUID newId();
+}
@@ -0,0 +1,56 @@
+package com.shopping.service;
+
+import com.shopping.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every outbox event as one JSON line to {@code app.outbox.sinks.file.path}, for local runs
+ * and tests.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.sinks.file.enabled", havingValue = "true")
+public class FileOutboxEventHandler implements OutboxEventHandler {
+    
+    private final Path path;
+    
+    public FileOutboxEventHandler(@Value("${app.outbox.sinks.file.path:logs/outbox-events.jsonl}") String path) throws IOException {
+        this.path = Path.of(path);
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        log.info("Writing outbox events to {}", this.path.toAbsolutePath());
+    }
+    
+    @Override
+    public Mono<Void> handle(OutboxEvent event) {
+        String line = "{\"id\":" + event.getId() +
+            ",\"eventType\":\"" + event.getEventType() + "\"" +
+            ",\"aggregateType\":\"" + event.getAggregateType() + "\"" +
+            ",\"aggregateId\":\"" + event.getAggregateId() + "\"" +
+            ",\"payload\":" + event.getPayload() + "}\n";
+        
+        return Mono.fromRunnable(() -> write(line))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+    
+    private synchronized void write(String line) {
+        try {
+            Files.writeString(path, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write outbox event to " + path, e);
+        }
+    }
+}
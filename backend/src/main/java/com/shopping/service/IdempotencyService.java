@@ -0,0 +1,181 @@
+package com.shopping.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopping.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a request already executed with the same {@code Idempotency-Key}.
+ *
+ * Keys are scoped per user and claimed in the {@code idempotency_keys} table before the request runs,
+ * so concurrent retries on any node see the claim. The claim is a short lease
+ * ({@code app.idempotency.in-progress-lease}), so a crashed node or dropped connection only blocks
+ * retries briefly; completed responses are kept for {@code app.idempotency.ttl} and fronted by a
+ * bounded in-memory cache. The key is bound to a hash of the request, and reusing it for a different
+ * request is rejected with 422.
+ *
+ * Once the action has started it may have placed an order, so the key is never released early. The
+ * action runs detached from the caller and its response is always stored, 4xx responses included; a
+ * client that disconnects still gets that response on retry. If the action fails with an exception or
+ * the response cannot be stored, the key stays claimed until its lease expires.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inProgressLease;
+    private final Cache<String, StoredResponse> responseCache;
+    
+    @Value("${app.idempotency.sweep-batch-size:500}")
+    private int sweepBatchSize;
+    
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${app.idempotency.in-progress-lease:60s}") Duration inProgressLease,
+                              @Value("${app.idempotency.cache-size:10000}") long cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressLease = inProgressLease;
+        this.responseCache = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+    
+    /**
+     * Runs {@code action} once per key. {@code request} must identify the request payload (for example
+     * its parameters joined in a fixed order); it is hashed and stored with the key.
+     */
+    public <T> Mono<ResponseEntity<T>> execute(UUID userId, String key, String request, Class<T> bodyType,
+                                               Supplier<Mono<ResponseEntity<T>>> action) {
+        String cacheKey = userId + ":" + key;
+        String requestHash = hash(request);
+        
+        StoredResponse cached = responseCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            log.debug("Replaying cached response for idempotency key {}", key);
+            return checkSameRequest(cached.requestHash(), requestHash)
+                .then(Mono.fromCallable(() -> replay(cached, bodyType)));
+        }
+        
+        return repository.claim(userId, key, requestHash, inProgressLease.toSeconds())
+            .flatMap(claimed -> {
+                if (claimed == 0) {
+                    return replayStored(userId, key, cacheKey, requestHash, bodyType);
+                }
+                
+                // Subscribed here rather than by the caller, so a disconnect cannot cancel the store
+                CompletableFuture<ResponseEntity<T>> outcome = Mono.defer(action)
+                    .flatMap(response -> store(userId, key, cacheKey, requestHash, response)
+                        .onErrorResume(e -> {
+                            log.error("Could not store response for idempotency key {}, retries wait for the lease: {}",
+                                key, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(response))
+                    .toFuture();
+                return Mono.fromFuture(outcome, true);
+            });
+    }
+    
+    private <T> Mono<ResponseEntity<T>> replayStored(UUID userId, String key, String cacheKey, String requestHash,
+                                                     Class<T> bodyType) {
+        return repository.findLive(userId, key)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                "Idempotency key is being reused concurrently")))
+            .flatMap(record -> checkSameRequest(record.getRequestHash(), requestHash).thenReturn(record))
+            .flatMap(record -> {
+                if (!record.isCompleted()) {
+                    return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this idempotency key is still in progress"));
+                }
+                
+                StoredResponse stored = new StoredResponse(record.getResponseStatus(), record.getResponseBody(),
+                    record.getRequestHash());
+                responseCache.put(cacheKey, stored);
+                log.debug("Replaying stored response for idempotency key {}", key);
+                return Mono.fromCallable(() -> replay(stored, bodyType));
+            });
+    }
+    
+    private Mono<Void> store(UUID userId, String key, String cacheKey, String requestHash, ResponseEntity<?> response) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(response.getBody()))
+            .flatMap(body -> {
+                StoredResponse stored = new StoredResponse(response.getStatusCode().value(), body, requestHash);
+                return repository.complete(userId, key, stored.status(), body, ttl.toSeconds())
+                    .doOnSuccess(updated -> responseCache.put(cacheKey, stored));
+            })
+            .then();
+    }
+    
+    private static Mono<Void> checkSameRequest(String storedHash, String requestHash) {
+        // Records claimed before request hashes were stored carry none and are replayed as before
+        if (storedHash == null || Objects.equals(storedHash, requestHash)) {
+            return Mono.empty();
+        }
+        return Mono.error(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+            "Idempotency key was already used for a different request"));
+    }
+    
+    private static String hash(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private <T> ResponseEntity<T> replay(StoredResponse stored, Class<T> bodyType) throws JsonProcessingException {
+        T body = stored.body() == null ? null : objectMapper.readValue(stored.body(), bodyType);
+        return ResponseEntity.status(stored.status())
+            .header(REPLAYED_HEADER, "true")
+            .body(body);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:300000}")
+    public Mono<Void> deleteExpiredKeys() {
+        return repository.deleteExpired(sweepBatchSize)
+            .expand(deleted -> deleted >= sweepBatchSize
+                ? repository.deleteExpired(sweepBatchSize)
+                : Mono.empty())
+            .reduce(0, Integer::sum)
+            .doOnNext(deleted -> {
+                if (deleted > 0) {
+                    log.info("Deleted {} expired idempotency keys", deleted);
+                }
+            })
+            .then();
+    }
+    
+    private record StoredResponse(int status, String body, String requestHash) {
+    }
+}
@@ -1,36 +1,82 @@
 package com.shopping.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shopping.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 
 @Slf4j
 @Service
 public class JwtService {
     
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    private static final Map<String, Object> HEADERS = Map.of("alg", "HS256", "typ", "JWT");
+    
+    // One immutable authority list per role, shared by every authenticated request
+    private static final Map<String, List<GrantedAuthority>> ROLE_AUTHORITIES = Arrays.stream(User.UserRole.values())
+        .collect(Collectors.toUnmodifiableMap(Enum::name,
+            role -> List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))));
+    
+    private final long jwtExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
     
-    @Value("${app.jwt.expiration}")
-    private long jwtExpiration;
+    // Verified tokens, keyed by the token's SHA-256 and kept until the token expires (capped at
+    // max-ttl). Caffeine's W-TinyLFU eviction keeps hot tokens when the cache is full.
+    private final Cache<TokenDigest, VerifiedToken> verifiedTokens;
     
-    // Cache em memória para tokens validados (performance)
-    private final Map<String, Claims> tokenCache = new ConcurrentHashMap<>();
-    private final Map<String, Long> tokenCacheTimestamp = new ConcurrentHashMap<>();
-    private static final long CACHE_TTL = 300000; // 5 minutos em milliseconds
+    public JwtService(@Value("${app.jwt.secret}") String jwtSecret,
+                      @Value("${app.jwt.expiration}") long jwtExpiration,
+                      @Value("${app.jwt.cache.max-size:10000}") long cacheSize,
+                      @Value("${app.jwt.cache.max-ttl:5m}") Duration cacheMaxTtl,
+                      MeterRegistry meterRegistry) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parser()
+            .verifyWith(signingKey)
+            .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfter(new UntilTokenExpiry(cacheMaxTtl))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.claims");
+    }
     
     public String generateToken(UUID userId, String email, String role) {
         log.debug("Generating JWT token for user: {}", email);
@@ -38,74 +84,48 @@ public class JwtService {
         Instant now = Instant.now();
         Instant expiration = now.plus(jwtExpiration, ChronoUnit.MILLIS);
         
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        
         return Jwts.builder()
+            .id(UUID.randomUUID().toString())
             .subject(userId.toString())
             .claim("email", email)
             .claim("role", role)
             .issuedAt(Date.from(now))
             .expiration(Date.from(expiration))
-            .signWith(key)
+            .signWith(signingKey)
             .compact();
     }
     
-    public Claims extractClaims(String token) {
-        log.debug("Extracting claims from JWT token");
-        
-        // Verificar cache primeiro (performance boost)
-        Claims cachedClaims = getCachedClaims(token);
-        if (cachedClaims != null) {
-            log.debug("JWT token encontrado no cache - performance otimizada");
-            return cachedClaims;
-        }
-        
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        
-        Claims claims = Jwts.parser()
-            .verifyWith(key)
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
-        
-        // Cachear o resultado para próximas validações
-        cacheClaims(token, claims);
-        
-        return claims;
+    /**
+     * Verifies a token and returns it in Spring Security's form. Used by the resource-server chain,
+     * so repeat requests with the same token skip HMAC verification and JSON parsing.
+     */
+    public Jwt decode(String token) {
+        return verify(token).jwt();
     }
     
-    private Claims getCachedClaims(String token) {
-        Long timestamp = tokenCacheTimestamp.get(token);
-        if (timestamp != null && (System.currentTimeMillis() - timestamp) < CACHE_TTL) {
-            return tokenCache.get(token);
-        }
-        // Limpar cache expirado
-        tokenCache.remove(token);
-        tokenCacheTimestamp.remove(token);
-        return null;
+    /**
+     * Authorities granted by the token's {@code role} claim, e.g. {@code ROLE_ADMIN}.
+     */
+    public List<GrantedAuthority> authorities(Jwt jwt) {
+        return ROLE_AUTHORITIES.getOrDefault(jwt.getClaimAsString("role"), List.of());
     }
     
-    private void cacheClaims(String token, Claims claims) {
-        // Limitar tamanho do cache para evitar memory leak
-        if (tokenCache.size() > 10000) {
-            // Limpar 20% dos tokens mais antigos
-            cleanOldTokens();
-        }
-        
-        tokenCache.put(token, claims);
-        tokenCacheTimestamp.put(token, System.currentTimeMillis());
+    public Claims extractClaims(String token) {
+        return verify(token).claims();
     }
     
-    private void cleanOldTokens() {
-        long cutoffTime = System.currentTimeMillis() - CACHE_TTL;
-        tokenCacheTimestamp.entrySet().removeIf(entry -> {
-            if (entry.getValue() < cutoffTime) {
-                tokenCache.remove(entry.getKey());
-                return true;
-            }
-            return false;
-        });
-        log.debug("Cache de JWT tokens limpo - {} tokens restantes", tokenCache.size());
+    private VerifiedToken verify(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Jwt jwt = new Jwt(token, claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant(), HEADERS, claims);
+        VerifiedToken verified = new VerifiedToken(claims, jwt);
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
     
     public UUID extractUserId(String token) {
@@ -132,4 +152,44 @@ public class JwtService {
             return false;
         }
     }
+    
+    /**
+     * SHA-256 of a token as four longs: a fixed 32-byte key instead of the full token string, and
+     * collision resistant so a forged token cannot hit another token's cached claims.
+     */
+    private record TokenDigest(long h0, long h1, long h2, long h3) {
+        
+        static TokenDigest of(String token) {
+            ByteBuffer hash = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+    
+    private record VerifiedToken(Claims claims, Jwt jwt) {
+    }
+    
+    private static class UntilTokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+        
+        private final long maxTtlNanos;
+        
+        UntilTokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+        
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken token, long currentTime) {
+            long untilExpiry = Duration.between(Instant.now(), token.jwt().getExpiresAt()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+        
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package com.shopping.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact per-key token buckets in a bounded Caffeine map, for keys a client can vary freely (emails):
+ * a spray over many keys only fills the map and never drains another key's bucket.
+ *
+ * An idle bucket is dropped once it would have refilled completely, so expiry loses nothing. When
+ * the map is full, W-TinyLFU admission keeps the frequently hit keys and rejects one-off keys, and
+ * an evicted key simply starts over with a full bucket. Buckets use the packed state of
+ * {@link StripedTokenBuckets}.
+ */
+public final class KeyedTokenBuckets {
+    
+    private final Cache<String, AtomicLong> buckets;
+    private final long capacity;
+    private final double refillPerMilli;
+    
+    public KeyedTokenBuckets(long maxKeys, int capacity, double refillPerSecond) {
+        this.capacity = StripedTokenBuckets.capacityOf(capacity);
+        this.refillPerMilli = refillPerSecond;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofMillis((long) Math.ceil(capacity / refillPerSecond * 1000)))
+            .build();
+    }
+    
+    /**
+     * Takes one token from the bucket of {@code key}; false when it is empty.
+     */
+    public boolean tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+        long now = StripedTokenBuckets.now();
+        
+        for (;;) {
+            long current = bucket.get();
+            long next = StripedTokenBuckets.take(current, now, capacity, refillPerMilli);
+            if (next == StripedTokenBuckets.EMPTY) {
+                return false;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
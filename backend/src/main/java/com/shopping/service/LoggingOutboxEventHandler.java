@@ -0,0 +1,23 @@
+package com.shopping.service;
+
+import com.shopping.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes every outbox event to the application log.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.sinks.log.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingOutboxEventHandler implements OutboxEventHandler {
+    
+    @Override
+    public Mono<Void> handle(OutboxEvent event) {
+        log.info("Outbox event {} {} for {} {}: {}", event.getId(), event.getEventType(),
+            event.getAggregateType(), event.getAggregateId(), event.getPayload());
+        return Mono.empty();
+    }
+}
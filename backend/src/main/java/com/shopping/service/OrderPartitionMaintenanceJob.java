@@ -0,0 +1,69 @@
+package com.shopping.service;
+
+import com.shopping.config.ShardRouter;
+import com.shopping.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the monthly partitions of {@code orders} and {@code order_items} ahead of time and, when
+ * {@code app.orders.partitions.archive-after-months} is set, detaches partitions older than that
+ * into the {@code archive} schema so they no longer weigh on inserts, vacuum or queries.
+ */
+@Slf4j
+@Service
+public class OrderPartitionMaintenanceJob {
+    
+    private final OrderRepository orderRepository;
+    private final ShardRouter shardRouter;
+    
+    @Value("${app.orders.partitions.months-ahead:3}")
+    private int monthsAhead;
+    
+    @Value("${app.orders.partitions.archive-after-months:0}")
+    private int archiveAfterMonths;
+    
+    public OrderPartitionMaintenanceJob(OrderRepository orderRepository, ShardRouter shardRouter) {
+        this.orderRepository = orderRepository;
+        this.shardRouter = shardRouter;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions().subscribe();
+    }
+    
+    @Scheduled(cron = "${app.orders.partitions.cron:0 0 2 * * *}")
+    public Mono<Void> maintainPartitions() {
+        return shardRouter.onEachShard(shard -> maintainShardPartitions(shard)).then();
+    }
+    
+    private Mono<Void> maintainShardPartitions(int shard) {
+        Mono<Void> archive = archiveAfterMonths > 0
+            ? orderRepository.archivePartitions(archiveAfterMonths)
+                .doOnNext(archived -> {
+                    if (archived > 0) {
+                        log.info("Archived {} order partitions older than {} months on shard {}", archived, archiveAfterMonths, shard);
+                    }
+                })
+                .then()
+            : Mono.empty();
+        
+        return orderRepository.ensurePartitions(monthsAhead)
+            .doOnNext(created -> {
+                if (created > 0) {
+                    log.info("Created {} order partitions on shard {}", created, shard);
+                }
+            })
+            .then(archive)
+            .onErrorResume(e -> {
+                log.error("Order partition maintenance failed on shard {}: {}", shard, e.getMessage());
+                return Mono.empty();
+            });
+    }
+}
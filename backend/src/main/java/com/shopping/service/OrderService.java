@@ -1,21 +1,41 @@
 package com.shopping.service;
 
+import com.shopping.config.ReadReplicaRouter;
+import com.shopping.config.ShardRouter;
+import com.shopping.dto.BulkCancelResultDto;
+import com.shopping.dto.OrderHistoryDto;
+import com.shopping.dto.OrderHistoryPageDto;
+import com.shopping.dto.OrderLineDto;
+import com.shopping.dto.OrderStatsDto;
 import com.shopping.model.CartItem;
 import com.shopping.model.Order;
 import com.shopping.model.OrderItem;
+import com.shopping.model.Product;
 import com.shopping.repository.OrderItemRepository;
 import com.shopping.repository.OrderRepository;
+import com.shopping.repository.OrderRepositoryCustom;
 import com.shopping.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -26,173 +46,478 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final ShoppingCartService cartService;
+    private final PricingService pricingService;
+    private final TransactionalOperator transactionalOperator;
+    private final SnowflakeIdGenerator idGenerator;
+    private final EntityIdGenerator entityIdGenerator;
+    private final OrderStatsService orderStatsService;
+    private final OutboxService outboxService;
+    private final ShardRouter shardRouter;
+    private final ReadReplicaRouter readReplicaRouter;
+    
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_BULK_CANCEL = 500;
+    private static final Duration ID_TIME_SKEW = Duration.ofDays(1);
     
     public Flux<Order> getAllOrders() {
         log.debug("Getting all orders");
-        return orderRepository.findAll();
+        return readReplicaRouter.onReplica(shardRouter.onEachShard(shard -> orderRepository.findAll()));
     }
     
     public Mono<Order> getOrderById(UUID id) {
         log.debug("Getting order by id: {}", id);
-        return orderRepository.findById(id);
+        return shardRouter.onEachShard(shard -> findOrder(id)).next();
+    }
+    
+    private Mono<Order> findOrder(UUID id) {
+        return creationWindow(id)
+            .map(window -> orderRepository.findByIdCreatedBetween(id, window[0], window[1])
+                .switchIfEmpty(Mono.defer(() -> orderRepository.findById(id))))
+            .orElseGet(() -> orderRepository.findById(id));
     }
     
     public Mono<Order> getOrderByNumber(String orderNumber) {
         log.debug("Getting order by number: {}", orderNumber);
-        return orderRepository.findByOrderNumber(orderNumber);
+        return shardRouter.onEachShard(shard -> orderRepository.findByOrderNumber(orderNumber)).next();
     }
     
     public Flux<Order> getOrdersByUser(UUID userId) {
         log.debug("Getting orders for user: {}", userId);
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        return readReplicaRouter.onReplica(userId, shardRouter.onUserShard(userId, orderRepository.findByUserIdOrderByCreatedAtDesc(userId)));
     }
     
     public Flux<Order> getOrdersByStatus(Order.OrderStatus status) {
         log.debug("Getting orders by status: {}", status);
-        return orderRepository.findByStatus(status);
+        return readReplicaRouter.onReplica(shardRouter.onEachShard(shard -> orderRepository.findByStatus(status)));
     }
     
     public Flux<OrderItem> getOrderItems(UUID orderId) {
         log.debug("Getting order items for order: {}", orderId);
-        return orderItemRepository.findByOrderId(orderId);
+        return locateShard(orderId)
+            .flatMapMany(shard -> shardRouter.onShard(shard, findOrderItems(orderId)));
+    }
+    
+    /**
+     * Items of {@code orderId} in the current database, read from the partition of the order's
+     * {@code created_at} instead of every {@code order_items} partition.
+     */
+    Flux<OrderItem> findOrderItems(UUID orderId) {
+        return findOrder(orderId)
+            .flatMapMany(order -> orderItemRepository.findByOrderIdCreatedBetween(orderId, order.getCreatedAt(), order.getCreatedAt()));
+    }
+    
+    /**
+     * Shard holding {@code orderId}, or empty when no shard has it. Without sharding there is only one
+     * store, so no lookup is made.
+     */
+    private Mono<Integer> locateShard(UUID orderId) {
+        if (!shardRouter.isEnabled()) {
+            return Mono.just(0);
+        }
+        return shardRouter.onEachShard(shard -> findOrder(orderId).map(order -> shard)).next();
+    }
+    
+    /**
+     * Orders and their items are partitioned by month on {@code created_at}. Order ids are UUIDv7, so
+     * the creation time they embed bounds the lookup to one or two partitions; the window absorbs
+     * the gap between id generation and auditing and any clock skew. Ids from before UUIDv7 have no
+     * window and fall back to scanning every partition.
+     */
+    private Optional<LocalDateTime[]> creationWindow(UUID id) {
+        return UuidV7Generator.timestampOf(id)
+            .map(instant -> LocalDateTime.ofInstant(instant, ZoneId.systemDefault()))
+            .map(createdAt -> new LocalDateTime[] {createdAt.minus(ID_TIME_SKEW), createdAt.plus(ID_TIME_SKEW)});
+    }
+    
+    /**
+     * Returns a page of the user's orders (newest first) together with their items using two queries:
+     * one keyset-paginated order read and one batched item read for all orders on the page.
+     */
+    public Mono<OrderHistoryPageDto> getOrderHistory(UUID userId, LocalDateTime beforeCreatedAt, UUID beforeId,
+                                                     int limit, boolean includeProductNames) {
+        log.debug("Getting order history for user: {} before ({}, {})", userId, beforeCreatedAt, beforeId);
+        
+        if ((beforeCreatedAt == null) != (beforeId == null)) {
+            return Mono.error(new IllegalArgumentException("beforeCreatedAt and beforeId must be given together"));
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        
+        Flux<Order> orders = beforeCreatedAt == null
+            ? orderRepository.findHistoryFirstPage(userId, pageSize)
+            : orderRepository.findHistoryPageBefore(userId, beforeCreatedAt, beforeId, pageSize);
+        // Product names live on the primary; sharded pages look them up there instead of joining
+        boolean joinProductNames = includeProductNames && !shardRouter.isEnabled();
+        
+        Mono<OrderHistoryPageDto> history = orders.collectList()
+            .flatMap(page -> {
+                if (page.isEmpty()) {
+                    return Mono.just(OrderHistoryPageDto.builder().orders(List.of()).build());
+                }
+                
+                List<UUID> orderIds = page.stream().map(Order::getId).toList();
+                // Pages are newest first, so the last order is the oldest
+                LocalDateTime oldest = page.get(page.size() - 1).getCreatedAt();
+                LocalDateTime newest = page.get(0).getCreatedAt();
+                return orderItemRepository.findLinesByOrderIds(orderIds, oldest, newest, joinProductNames)
+                    .collectList()
+                    .flatMap(lines -> includeProductNames && !joinProductNames ? withProductNames(lines) : Mono.just(lines))
+                    .map(lines -> toHistoryPage(page, lines.stream().collect(Collectors.groupingBy(OrderLineDto::getOrderId)), pageSize));
+            });
+        
+        return readReplicaRouter.onReplica(userId, shardRouter.onUserShard(userId, history));
+    }
+    
+    private Mono<List<OrderLineDto>> withProductNames(List<OrderLineDto> lines) {
+        Set<UUID> productIds = lines.stream().map(OrderLineDto::getProductId).collect(Collectors.toSet());
+        return shardRouter.onPrimary(productRepository.findAllById(productIds)
+                .collectMap(Product::getId, Product::getName))
+            .map(names -> {
+                lines.forEach(line -> line.setProductName(names.get(line.getProductId())));
+                return lines;
+            });
+    }
+    
+    private OrderHistoryPageDto toHistoryPage(List<Order> page, Map<UUID, List<OrderLineDto>> linesByOrder, int pageSize) {
+        List<OrderHistoryDto> entries = page.stream()
+            .map(order -> OrderHistoryDto.builder()
+                .order(order)
+                .items(linesByOrder.getOrDefault(order.getId(), List.of()))
+                .build())
+            .toList();
+        
+        OrderHistoryPageDto.OrderHistoryPageDtoBuilder builder = OrderHistoryPageDto.builder().orders(entries);
+        if (page.size() == pageSize) {
+            Order last = page.get(page.size() - 1);
+            builder.nextBeforeCreatedAt(last.getCreatedAt()).nextBeforeId(last.getId());
+        }
+        return builder.build();
     }
     
+    /**
+     * Creates an order from the user's cart in one transaction with a constant number of statements:
+     * cart read, conditional set-based stock decrement, order insert, multi-row item insert and a
+     * single cart delete.
+     */
     public Mono<Order> createOrderFromCart(UUID userId, String shippingAddress, String billingAddress, String paymentMethod) {
         log.debug("Creating order from cart for user: {}", userId);
         
-        return cartService.validateCartStock(userId)
-            .flatMap(stockValid -> {
-                if (!stockValid) {
-                    return Mono.error(new IllegalArgumentException("Some items in cart are out of stock"));
+        Mono<Order> placed = shardRouter.isEnabled()
+            ? placeOrderOnShard(userId, shippingAddress, billingAddress, paymentMethod)
+            : transactionalOperator.transactional(placeOrder(userId, shippingAddress, billingAddress, paymentMethod));
+        return placed
+            .doOnNext(this::orderCommitted)
+            .doFinally(signal -> readReplicaRouter.recordWrite(userId));
+    }
+    
+    /**
+     * Must be called once an order placed via {@link #placeOrder} has been committed.
+     */
+    void orderCommitted(Order order) {
+        orderStatsService.recordCreated(order);
+    }
+    
+    /**
+     * Checkout pipeline without its own transaction boundary; callers must run it inside one.
+     */
+    Mono<Order> placeOrder(UUID userId, String shippingAddress, String billingAddress, String paymentMethod) {
+        return cartService.getCartItems(userId)
+            .collectList()
+            .flatMap(cartItems -> {
+                if (cartItems.isEmpty()) {
+                    return Mono.error(new IllegalArgumentException("Cart is empty"));
                 }
                 
-                return cartService.getCartItems(userId)
-                    .collectList()
-                    .flatMap(cartItems -> {
-                        if (cartItems.isEmpty()) {
-                            return Mono.error(new IllegalArgumentException("Cart is empty"));
+                UUID cartId = cartItems.get(0).getCartId();
+                Map<UUID, Integer> quantities = quantitiesByProduct(cartItems);
+                Order order = newOrder(userId, cartItems, shippingAddress, billingAddress, paymentMethod);
+                
+                return productRepository.decrementStock(quantities, cartId)
+                    .flatMap(updated -> {
+                        if (updated != quantities.size()) {
+                            return Mono.error(new IllegalArgumentException("Some items in cart are out of stock"));
                         }
-                        
-                        // Calculate total
-                        BigDecimal totalAmount = cartItems.stream()
-                            .map(CartItem::getTotalPrice)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                        
-                        // Create order
-                        Order order = Order.builder()
-                            .id(UUID.randomUUID())
-                            .userId(userId)
-                            .orderNumber(generateOrderNumber())
-                            .status(Order.OrderStatus.PENDING)
-                            .totalAmount(totalAmount)
-                            .shippingAddress(shippingAddress)
-                            .billingAddress(billingAddress)
-                            .paymentMethod(paymentMethod)
-                            .paymentStatus(Order.PaymentStatus.PENDING)
-                            .build();
-                        
-                        return orderRepository.save(order)
-                            .flatMap(savedOrder -> 
-                                // Create order items and update stock
-                                Flux.fromIterable(cartItems)
-                                    .flatMap(cartItem -> 
-                                        createOrderItem(savedOrder.getId(), cartItem)
-                                            .then(updateProductStock(cartItem.getProductId(), -cartItem.getQuantity()))
-                                    )
-                                    .then(cartService.clearCart(userId))
-                                    .thenReturn(savedOrder)
-                            );
+                        return orderRepository.save(order);
+                    })
+                    .flatMap(savedOrder -> {
+                        List<OrderItem> orderItems = toOrderItems(savedOrder, cartItems);
+                        return orderItemRepository.insertAll(orderItems)
+                            .then(outboxService.orderCreated(savedOrder))
+                            .then(cartService.clearCartItems(cartId))
+                            .thenReturn(savedOrder);
                     });
             });
     }
     
-    private Mono<OrderItem> createOrderItem(UUID orderId, CartItem cartItem) {
-        OrderItem orderItem = OrderItem.builder()
-            .id(UUID.randomUUID())
-            .orderId(orderId)
-            .productId(cartItem.getProductId())
-            .quantity(cartItem.getQuantity())
-            .unitPrice(cartItem.getUnitPrice())
-            .totalPrice(cartItem.getTotalPrice())
-            .build();
+    /**
+     * Checkout when orders are sharded. Stock and cart stay on the primary while the order lives on
+     * the user's shard, so the work is split into two local transactions: stock decrement and cart
+     * clearing on the primary, then order, items and outbox event on the shard. If the shard step
+     * fails, the stock and the cart lines are given back on the primary.
+     */
+    private Mono<Order> placeOrderOnShard(UUID userId, String shippingAddress, String billingAddress, String paymentMethod) {
+        Mono<List<CartItem>> takeCart = cartService.getCartItems(userId)
+            .collectList()
+            .flatMap(cartItems -> {
+                if (cartItems.isEmpty()) {
+                    return Mono.error(new IllegalArgumentException("Cart is empty"));
+                }
+                UUID cartId = cartItems.get(0).getCartId();
+                Map<UUID, Integer> quantities = quantitiesByProduct(cartItems);
+                return productRepository.decrementStock(quantities, cartId)
+                    .flatMap(updated -> updated != quantities.size()
+                        ? Mono.<List<CartItem>>error(new IllegalArgumentException("Some items in cart are out of stock"))
+                        : cartService.clearCartItems(cartId).thenReturn(cartItems));
+            });
         
-        return orderItemRepository.save(orderItem);
+        return shardRouter.onPrimary(transactionalOperator.transactional(takeCart))
+            .flatMap(cartItems -> {
+                Order order = newOrder(userId, cartItems, shippingAddress, billingAddress, paymentMethod);
+                
+                Mono<Order> storeOrder = orderRepository.save(order)
+                    .flatMap(savedOrder -> orderItemRepository.insertAll(toOrderItems(savedOrder, cartItems))
+                        .then(outboxService.orderCreated(savedOrder))
+                        .thenReturn(savedOrder));
+                
+                return shardRouter.onUserShard(userId, transactionalOperator.transactional(storeOrder))
+                    .onErrorResume(e -> shardRouter.onPrimary(transactionalOperator.transactional(
+                            productRepository.incrementStock(quantitiesByProduct(cartItems))
+                                .then(cartService.restoreCartItems(cartItems.get(0).getCartId(), cartItems))))
+                        .onErrorResume(compensationError -> {
+                            log.error("Could not give back stock and cart for failed order of user {}: {}", userId, compensationError.getMessage());
+                            return Mono.empty();
+                        })
+                        .then(Mono.error(e)));
+            });
     }
     
-    private Mono<Void> updateProductStock(UUID productId, int quantityChange) {
-        return productRepository.findById(productId)
-            .flatMap(product -> {
-                int newStock = product.getStockQuantity() + quantityChange;
-                if (newStock < 0) {
-                    return Mono.error(new IllegalArgumentException("Insufficient stock"));
-                }
-                product.setStockQuantity(newStock);
-                return productRepository.save(product);
-            })
-            .then();
+    private Order newOrder(UUID userId, List<CartItem> cartItems, String shippingAddress, String billingAddress, String paymentMethod) {
+        // Calculate total (subtotal + shipping + tax)
+        BigDecimal totalAmount = pricingService.price(cartItems).total().toBigDecimal();
+        
+        return Order.builder()
+            .userId(userId)
+            .orderNumber(generateOrderNumber())
+            .status(Order.OrderStatus.PENDING)
+            .totalAmount(totalAmount)
+            .shippingAddress(shippingAddress)
+            .billingAddress(billingAddress)
+            .paymentMethod(paymentMethod)
+            .paymentStatus(Order.PaymentStatus.PENDING)
+            .build();
+    }
+    
+    private Map<UUID, Integer> quantitiesByProduct(Collection<? extends CartItem> cartItems) {
+        Map<UUID, Integer> quantities = new HashMap<>();
+        cartItems.forEach(cartItem -> quantities.merge(cartItem.getProductId(), cartItem.getQuantity(), Integer::sum));
+        return quantities;
+    }
+    
+    private List<OrderItem> toOrderItems(Order order, List<CartItem> cartItems) {
+        return cartItems.stream()
+            .map(cartItem -> OrderItem.builder()
+                .id(entityIdGenerator.newId())
+                .orderId(order.getId())
+                .productId(cartItem.getProductId())
+                .quantity(cartItem.getQuantity())
+                .unitPrice(cartItem.getUnitPrice())
+                .totalPrice(cartItem.getTotalPrice())
+                // Same partition key as the order, so items live in the order's partition
+                .createdAt(order.getCreatedAt())
+                .build())
+            .toList();
     }
     
     public Mono<Order> updateOrderStatus(UUID orderId, Order.OrderStatus status) {
         log.debug("Updating order status - Order: {}, Status: {}", orderId, status);
         
-        return orderRepository.findById(orderId)
+        Mono<Order> update = orderRepository.findById(orderId)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Order not found")))
             .flatMap(order -> {
+                Order.OrderStatus previous = order.getStatus();
                 order.setStatus(status);
-                return orderRepository.save(order);
+                return orderRepository.save(order)
+                    .flatMap(saved -> outboxService.orderStatusChanged(saved, previous).thenReturn(saved))
+                    .doOnNext(saved -> orderStatsService.recordStatusChange(previous, status));
             });
+        
+        return locateShard(orderId)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Order not found")))
+            .flatMap(shard -> shardRouter.onShard(shard, transactionalOperator.transactional(update)))
+            .doOnNext(saved -> readReplicaRouter.recordWrite(saved.getUserId()));
     }
     
     public Mono<Order> updatePaymentStatus(UUID orderId, Order.PaymentStatus paymentStatus) {
         log.debug("Updating payment status - Order: {}, Status: {}", orderId, paymentStatus);
         
-        return orderRepository.findById(orderId)
+        Mono<Order> update = orderRepository.findById(orderId)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Order not found")))
             .flatMap(order -> {
+                Order.PaymentStatus previous = order.getPaymentStatus();
                 order.setPaymentStatus(paymentStatus);
-                return orderRepository.save(order);
+                return orderRepository.save(order)
+                    .flatMap(saved -> outboxService.orderPaymentStatusChanged(saved, previous).thenReturn(saved))
+                    .doOnNext(saved -> orderStatsService.recordPaymentStatusChange(previous, paymentStatus));
             });
+        
+        return locateShard(orderId)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Order not found")))
+            .flatMap(shard -> shardRouter.onShard(shard, transactionalOperator.transactional(update)))
+            .doOnNext(saved -> readReplicaRouter.recordWrite(saved.getUserId()));
     }
     
     public Mono<Void> cancelOrder(UUID orderId) {
         log.debug("Cancelling order: {}", orderId);
         
-        return orderRepository.findById(orderId)
-            .switchIfEmpty(Mono.error(new IllegalArgumentException("Order not found")))
-            .flatMap(order -> {
-                if (!order.canBeCancelled()) {
-                    return Mono.error(new IllegalArgumentException("Order cannot be cancelled"));
+        return cancelOrders(List.of(orderId))
+            .flatMap(result -> {
+                if (!result.getCancelled().isEmpty()) {
+                    return Mono.<Void>empty();
                 }
+                return locateShard(orderId)
+                    .hasElement()
+                    .flatMap(exists -> Mono.<Void>error(new IllegalArgumentException(
+                        exists ? "Order cannot be cancelled" : "Order not found")));
+            });
+    }
+    
+    /**
+     * Cancels all cancellable orders of {@code orderIds} in one transaction with a fixed number of
+     * set-based statements: a conditional status update and one stock restore joined to
+     * {@code order_items}. Sales rollups are corrected from the ORDER_CANCELLED outbox events. Orders
+     * that are missing or past CONFIRMED are reported back as not cancelled.
+     */
+    public Mono<BulkCancelResultDto> cancelOrders(Collection<UUID> orderIds) {
+        log.debug("Cancelling {} orders", orderIds.size());
+        
+        Set<UUID> requested = new LinkedHashSet<>(orderIds);
+        if (requested.size() > MAX_BULK_CANCEL) {
+            return Mono.error(new IllegalArgumentException("At most " + MAX_BULK_CANCEL + " orders can be cancelled at once"));
+        }
+        
+        Mono<List<OrderRepositoryCustom.CancelledOrder>> cancellation = shardRouter.isEnabled()
+            ? cancelOnShards(requested)
+            : transactionalOperator.transactional(cancelInOneTransaction(requested));
+        
+        return cancellation
+            .map(cancelled -> {
+                cancelled.forEach(order -> orderStatsService.recordStatusChange(order.previousStatus(), Order.OrderStatus.CANCELLED));
                 
-                // Restore stock
-                return orderItemRepository.findByOrderId(orderId)
-                    .flatMap(orderItem -> 
-                        updateProductStock(orderItem.getProductId(), orderItem.getQuantity())
-                    )
-                    .then(updateOrderStatus(orderId, Order.OrderStatus.CANCELLED))
-                    .then();
+                Set<UUID> cancelledIds = cancelled.stream()
+                    .map(OrderRepositoryCustom.CancelledOrder::orderId)
+                    .collect(Collectors.toSet());
+                return BulkCancelResultDto.builder()
+                    .cancelled(requested.stream().filter(cancelledIds::contains).toList())
+                    .notCancelled(requested.stream().filter(id -> !cancelledIds.contains(id)).toList())
+                    .build();
             });
     }
     
+    private Mono<List<OrderRepositoryCustom.CancelledOrder>> cancelInOneTransaction(Set<UUID> requested) {
+        return orderRepository.cancelIfCancellable(requested)
+            .collectList()
+            .flatMap(cancelled -> {
+                if (cancelled.isEmpty()) {
+                    return Mono.just(cancelled);
+                }
+                
+                Map<UUID, Order.OrderStatus> previousStatuses = cancelled.stream()
+                    .collect(Collectors.toMap(OrderRepositoryCustom.CancelledOrder::orderId,
+                        OrderRepositoryCustom.CancelledOrder::previousStatus));
+                List<UUID> cancelledIds = List.copyOf(previousStatuses.keySet());
+                
+                return productRepository.restoreStock(cancelledIds)
+                    .thenMany(orderRepository.findAllById(cancelledIds))
+                    .concatMap(order -> outboxService.orderStatusChanged(order, previousStatuses.get(order.getId())))
+                    .then(Mono.just(cancelled));
+            });
+    }
+    
+    /**
+     * Sharded cancellation: each shard cancels the orders it holds and writes their outbox events in
+     * its own transaction, then stock is restored on the primary from the items returned by the
+     * shards. A failure on the primary is logged for reconciliation; the orders stay
+     * cancelled.
+     */
+    private Mono<List<OrderRepositoryCustom.CancelledOrder>> cancelOnShards(Set<UUID> requested) {
+        return shardRouter.onEachShard(shard -> transactionalOperator.transactional(cancelOnShard(requested)))
+            .collectList()
+            .flatMap(results -> {
+                List<OrderRepositoryCustom.CancelledOrder> cancelled = results.stream()
+                    .flatMap(result -> result.cancelled().stream())
+                    .toList();
+                if (cancelled.isEmpty()) {
+                    return Mono.just(cancelled);
+                }
+                
+                Map<UUID, Integer> quantities = new HashMap<>();
+                results.forEach(result -> result.items().forEach(item ->
+                    quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum)));
+                
+                return shardRouter.onPrimary(transactionalOperator.transactional(productRepository.incrementStock(quantities)))
+                    .onErrorResume(e -> {
+                        log.error("Orders {} were cancelled but stock was not restored: {}",
+                            cancelled.stream().map(OrderRepositoryCustom.CancelledOrder::orderId).toList(), e.getMessage());
+                        return Mono.empty();
+                    })
+                    .thenReturn(cancelled);
+            });
+    }
+    
+    private Mono<ShardCancellation> cancelOnShard(Set<UUID> requested) {
+        return orderRepository.cancelIfCancellable(requested)
+            .collectList()
+            .flatMap(cancelled -> {
+                if (cancelled.isEmpty()) {
+                    return Mono.just(new ShardCancellation(cancelled, List.of()));
+                }
+                
+                Map<UUID, Order.OrderStatus> previousStatuses = cancelled.stream()
+                    .collect(Collectors.toMap(OrderRepositoryCustom.CancelledOrder::orderId,
+                        OrderRepositoryCustom.CancelledOrder::previousStatus));
+                List<UUID> cancelledIds = List.copyOf(previousStatuses.keySet());
+                
+                return orderRepository.findAllById(cancelledIds)
+                    .concatMap(order -> outboxService.orderStatusChanged(order, previousStatuses.get(order.getId())))
+                    .then(orderItemRepository.findByOrderIdIn(cancelledIds).collectList())
+                    .map(items -> new ShardCancellation(cancelled, items));
+            });
+    }
+    
+    private record ShardCancellation(List<OrderRepositoryCustom.CancelledOrder> cancelled, List<OrderItem> items) {
+    }
+    
     public Mono<Long> countOrdersByUser(UUID userId) {
         log.debug("Counting orders for user: {}", userId);
-        return orderRepository.countByUserId(userId);
+        return readReplicaRouter.onReplica(userId, shardRouter.onUserShard(userId, orderRepository.countByUserId(userId)));
+    }
+    
+    public Mono<OrderStatsDto> getOrderStats() {
+        log.debug("Getting order stats");
+        return orderStatsService.getStats();
     }
     
     public Mono<Long> countOrdersByStatus(Order.OrderStatus status) {
         log.debug("Counting orders by status: {}", status);
-        return orderRepository.countByStatus(status);
+        return readReplicaRouter.onReplica(shardRouter.onEachShard(shard -> orderRepository.countByStatus(status))
+            .reduce(0L, Long::sum));
     }
     
     public Flux<Order> getOrdersWithPagination(int page, int size) {
         log.debug("Getting orders with pagination: page {}, size {}", page, size);
         int offset = page * size;
-        return orderRepository.findAllWithPagination(size, offset);
+        if (!shardRouter.isEnabled()) {
+            return readReplicaRouter.onReplica(orderRepository.findAllWithPagination(size, offset));
+        }
+        
+        // Every shard returns its newest offset + size orders; the merged stream is cut to the page
+        Comparator<Order> newestFirst = Comparator.comparing(Order::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Order::getId, Comparator.reverseOrder());
+        return shardRouter.onEachShardSorted(newestFirst, shard -> orderRepository.findAllWithPagination(offset + size, 0))
+            .skip(offset)
+            .take(size);
     }
     
     private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.valueOf((int) (Math.random() * 1000));
-        return "ORD-" + timestamp + "-" + random;
+        return idGenerator.nextOrderNumber();
     }
 }
@@ -0,0 +1,126 @@
+package com.shopping.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopping.config.ShardRouter;
+import com.shopping.dto.OrderStatsDto;
+import com.shopping.model.Order;
+import com.shopping.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Order counts per status and payment status for the admin dashboard.
+ *
+ * Counts are loaded with one grouped query and kept for {@code app.orders.stats.ttl}. In between,
+ * committed order changes adjust the cached counters, so the dashboard stays current without
+ * rescanning {@code orders}. Changes that commit while a reload is in flight may be missed until
+ * the next reload.
+ */
+@Slf4j
+@Service
+public class OrderStatsService {
+    
+    private static final String KEY = "orders";
+    
+    private final OrderRepository orderRepository;
+    private final ShardRouter shardRouter;
+    private final AsyncLoadingCache<String, Counts> cache;
+    
+    public OrderStatsService(OrderRepository orderRepository, ShardRouter shardRouter,
+                             @Value("${app.orders.stats.ttl:30s}") Duration ttl) {
+        this.orderRepository = orderRepository;
+        this.shardRouter = shardRouter;
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .buildAsync((key, executor) -> load().toFuture());
+    }
+    
+    public Mono<OrderStatsDto> getStats() {
+        return Mono.fromFuture(cache.get(KEY)).map(Counts::toDto);
+    }
+    
+    public void recordCreated(Order order) {
+        withCachedCounts(counts -> {
+            counts.byStatus.get(order.getStatus()).incrementAndGet();
+            counts.byPaymentStatus.get(order.getPaymentStatus()).incrementAndGet();
+        });
+    }
+    
+    public void recordStatusChange(Order.OrderStatus from, Order.OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        withCachedCounts(counts -> {
+            counts.byStatus.get(from).decrementAndGet();
+            counts.byStatus.get(to).incrementAndGet();
+        });
+    }
+    
+    public void recordPaymentStatusChange(Order.PaymentStatus from, Order.PaymentStatus to) {
+        if (from == to) {
+            return;
+        }
+        withCachedCounts(counts -> {
+            counts.byPaymentStatus.get(from).decrementAndGet();
+            counts.byPaymentStatus.get(to).incrementAndGet();
+        });
+    }
+    
+    private void withCachedCounts(Consumer<Counts> adjustment) {
+        CompletableFuture<Counts> cached = cache.getIfPresent(KEY);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            adjustment.accept(cached.join());
+        }
+    }
+    
+    private Mono<Counts> load() {
+        log.debug("Loading order stats");
+        Counts counts = new Counts();
+        return shardRouter.onEachShard(shard -> orderRepository.countGroupedByStatus())
+            .doOnNext(row -> {
+                counts.byStatus.get(row.status()).addAndGet(row.count());
+                counts.byPaymentStatus.get(row.paymentStatus()).addAndGet(row.count());
+            })
+            .then(Mono.just(counts));
+    }
+    
+    private static class Counts {
+        private final Map<Order.OrderStatus, AtomicLong> byStatus = new EnumMap<>(Order.OrderStatus.class);
+        private final Map<Order.PaymentStatus, AtomicLong> byPaymentStatus = new EnumMap<>(Order.PaymentStatus.class);
+        private final LocalDateTime loadedAt = LocalDateTime.now();
+        
+        Counts() {
+            for (Order.OrderStatus status : Order.OrderStatus.values()) {
+                byStatus.put(status, new AtomicLong());
+            }
+            for (Order.PaymentStatus status : Order.PaymentStatus.values()) {
+                byPaymentStatus.put(status, new AtomicLong());
+            }
+        }
+        
+        OrderStatsDto toDto() {
+            Map<Order.OrderStatus, Long> statusCounts = new EnumMap<>(Order.OrderStatus.class);
+            byStatus.forEach((status, count) -> statusCounts.put(status, count.get()));
+            Map<Order.PaymentStatus, Long> paymentCounts = new EnumMap<>(Order.PaymentStatus.class);
+            byPaymentStatus.forEach((status, count) -> paymentCounts.put(status, count.get()));
+            
+            return OrderStatsDto.builder()
+                .totalOrders(statusCounts.values().stream().mapToLong(Long::longValue).sum())
+                .byStatus(statusCounts)
+                .byPaymentStatus(paymentCounts)
+                .loadedAt(loadedAt)
+                .build();
+        }
+    }
+}
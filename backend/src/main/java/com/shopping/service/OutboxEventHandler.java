@@ -0,0 +1,19 @@
+package com.shopping.service;
+
+import com.shopping.model.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consumer of outbox events, invoked by {@link OutboxRelay}.
+ *
+ * Delivery is at-least-once: an event can be handed over again after a failure or a relay restart,
+ * so implementations must be idempotent (the event id is stable across deliveries).
+ */
+public interface OutboxEventHandler {
+    
+    default boolean supports(String eventType) {
+        return true;
+    }
+    
+    Mono<Void> handle(OutboxEvent event);
+}
@@ -0,0 +1,187 @@
+package com.shopping.service;
+
+import com.shopping.config.ShardRouter;
+import com.shopping.model.OutboxEvent;
+import com.shopping.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains {@code outbox_events} to the registered {@link OutboxEventHandler}s.
+ *
+ * Each poll leases due events in id order with {@code FOR UPDATE SKIP LOCKED}, so several nodes can
+ * relay concurrently without handing out the same event twice. An event is marked published only
+ * after every supporting handler succeeded; otherwise it is retried with exponential backoff and
+ * parked as FAILED after {@code max-attempts}. Delivery is at-least-once. With sharded order
+ * storage every shard has its own outbox and is drained independently.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ShardRouter shardRouter;
+    private final List<OutboxEventHandler> handlers;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final Timer deliveryLatencyTimer;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.outbox.relay.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${app.outbox.relay.lease-seconds:60}")
+    private long leaseSeconds;
+    
+    @Value("${app.outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${app.outbox.relay.retry-delay-seconds:5}")
+    private long retryDelaySeconds;
+    
+    @Value("${app.outbox.relay.handler-timeout:10s}")
+    private Duration handlerTimeout;
+    
+    @Value("${app.outbox.retention:7d}")
+    private Duration retention;
+    
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, ShardRouter shardRouter,
+                       List<OutboxEventHandler> handlers, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.shardRouter = shardRouter;
+        this.handlers = handlers;
+        this.deliveredCounter = Counter.builder("outbox.delivered")
+            .description("Outbox events delivered to all handlers")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.failed")
+            .description("Failed outbox delivery attempts")
+            .register(meterRegistry);
+        this.deliveryLatencyTimer = Timer.builder("outbox.delivery.latency")
+            .description("Time from writing an outbox event to its delivery")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder("outbox.pending", pendingEvents, AtomicLong::get)
+            .description("Outbox events waiting for delivery")
+            .register(meterRegistry);
+        Gauge.builder("outbox.lag", oldestPendingAgeSeconds, AtomicLong::get)
+            .description("Age of the oldest undelivered outbox event")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        log.info("Outbox relay handlers: {}", handlers.stream().map(h -> h.getClass().getSimpleName()).toList());
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval-ms:500}")
+    public Mono<Void> relay() {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        
+        return shardRouter.onEachShard(shard -> relayBatch()
+                .expand(relayed -> relayed >= batchSize ? relayBatch() : Mono.empty()))
+            .then(refreshLag())
+            .onErrorResume(e -> {
+                log.error("Outbox relay failed: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+    
+    @Scheduled(cron = "${app.outbox.retention-cron:0 15 * * * *}")
+    public Mono<Void> deletePublishedEvents() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        return shardRouter.onEachShard(shard -> outboxEventRepository.deletePublishedBefore(cutoff, batchSize)
+                .expand(deleted -> deleted >= batchSize
+                    ? outboxEventRepository.deletePublishedBefore(cutoff, batchSize)
+                    : Mono.empty()))
+            .reduce(0, Integer::sum)
+            .doOnNext(deleted -> {
+                if (deleted > 0) {
+                    log.info("Deleted {} published outbox events", deleted);
+                }
+            })
+            .then();
+    }
+    
+    private Mono<Integer> relayBatch() {
+        return outboxEventRepository.leaseDue(batchSize, leaseSeconds)
+            .collectSortedList(Comparator.comparing(OutboxEvent::getId))
+            .flatMap(events -> {
+                if (events.isEmpty()) {
+                    return Mono.just(0);
+                }
+                
+                return Flux.fromIterable(events)
+                    .concatMap(event -> deliver(event)
+                        .thenReturn(event)
+                        .onErrorResume(e -> markFailed(event, e).then(Mono.empty())))
+                    .collectList()
+                    .flatMap(this::markPublished)
+                    .thenReturn(events.size());
+            });
+    }
+    
+    private Mono<Void> deliver(OutboxEvent event) {
+        return Flux.fromIterable(handlers)
+            .filter(handler -> handler.supports(event.getEventType()))
+            .concatMap(handler -> handler.handle(event).timeout(handlerTimeout))
+            .then();
+    }
+    
+    private Mono<Void> markPublished(List<OutboxEvent> delivered) {
+        if (delivered.isEmpty()) {
+            return Mono.empty();
+        }
+        
+        return outboxEventRepository.markPublished(delivered.stream().map(OutboxEvent::getId).toList())
+            .doOnNext(updated -> {
+                LocalDateTime now = LocalDateTime.now();
+                deliveredCounter.increment(delivered.size());
+                delivered.stream()
+                    .filter(event -> event.getCreatedAt() != null)
+                    .forEach(event -> deliveryLatencyTimer.record(Duration.between(event.getCreatedAt(), now)));
+            })
+            .then();
+    }
+    
+    private Mono<Void> markFailed(OutboxEvent event, Throwable error) {
+        failedCounter.increment();
+        int attempts = event.getAttempts() != null ? event.getAttempts() : 1;
+        long delay = retryDelaySeconds << Math.min(attempts - 1, 10);
+        
+        if (attempts >= maxAttempts) {
+            log.error("Outbox event {} ({}) failed {} times, giving up: {}", event.getId(), event.getEventType(), attempts, error.getMessage());
+        } else {
+            log.warn("Outbox event {} ({}) failed, retrying in {}s: {}", event.getId(), event.getEventType(), delay, error.getMessage());
+        }
+        return outboxEventRepository.markFailed(event.getId(), String.valueOf(error.getMessage()), delay, maxAttempts).then();
+    }
+    
+    private Mono<Void> refreshLag() {
+        return shardRouter.onEachShard(shard -> outboxEventRepository.countPending())
+            .reduce(0L, Long::sum)
+            .doOnNext(pendingEvents::set)
+            .then(shardRouter.onEachShard(shard -> outboxEventRepository.findOldestPendingCreatedAt())
+                .reduce((a, b) -> a.isBefore(b) ? a : b)
+                .map(createdAt -> Math.max(0, Duration.between(createdAt, LocalDateTime.now()).toSeconds()))
+                .defaultIfEmpty(0L))
+            .doOnNext(oldestPendingAgeSeconds::set)
+            .then();
+    }
+}
@@ -0,0 +1,82 @@
+package com.shopping.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopping.dto.OrderEventDto;
+import com.shopping.model.Order;
+import com.shopping.model.OutboxEvent;
+import com.shopping.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes domain events to the {@code outbox_events} table.
+ *
+ * Must be called inside the transaction that performs the change, so an event exists if and only if
+ * the change committed. Delivery to handlers is done later by {@link OutboxRelay}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    
+    public static final String ORDER_AGGREGATE = "ORDER";
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    public static final String ORDER_PAYMENT_STATUS_CHANGED = "ORDER_PAYMENT_STATUS_CHANGED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    
+    public Mono<Void> orderCreated(Order order) {
+        return append(ORDER_CREATED, order, null, null);
+    }
+    
+    public Mono<Void> orderStatusChanged(Order order, Order.OrderStatus previousStatus) {
+        String eventType = order.getStatus() == Order.OrderStatus.CANCELLED ? ORDER_CANCELLED : ORDER_STATUS_CHANGED;
+        return append(eventType, order, previousStatus, null);
+    }
+    
+    public Mono<Void> orderPaymentStatusChanged(Order order, Order.PaymentStatus previousPaymentStatus) {
+        return append(ORDER_PAYMENT_STATUS_CHANGED, order, null, previousPaymentStatus);
+    }
+    
+    private Mono<Void> append(String eventType, Order order, Order.OrderStatus previousStatus,
+                              Order.PaymentStatus previousPaymentStatus) {
+        OrderEventDto payload = OrderEventDto.builder()
+            .orderId(order.getId())
+            .orderNumber(order.getOrderNumber())
+            .userId(order.getUserId())
+            .status(order.getStatus())
+            .previousStatus(previousStatus)
+            .paymentStatus(order.getPaymentStatus())
+            .previousPaymentStatus(previousPaymentStatus)
+            .totalAmount(order.getTotalAmount())
+            .occurredAt(LocalDateTime.now())
+            .build();
+        
+        return Mono.fromCallable(() -> OutboxEvent.builder()
+                .aggregateType(ORDER_AGGREGATE)
+                .aggregateId(order.getId())
+                .eventType(eventType)
+                .payload(serialize(payload))
+                .nextAttemptAt(LocalDateTime.now())
+                .build())
+            .flatMap(outboxEventRepository::save)
+            .doOnNext(event -> log.debug("Queued {} event {} for order {}", eventType, event.getId(), order.getId()))
+            .then();
+    }
+    
+    private String serialize(OrderEventDto payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order event", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.shopping.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a dedicated bounded pool instead of the event loop.
+ *
+ * BCrypt is deliberately CPU-heavy (around 100 ms per call), so the pool uses a fixed number of
+ * platform threads ({@code app.auth.hashing.pool-size}, one per core by default) and at most
+ * {@code queue-capacity} waiting requests. Beyond that requests fail fast with 503 rather than
+ * queueing behind work they would time out on anyway.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final AuthAdmissionService authAdmissionService;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    
+    public PasswordHashingService(PasswordEncoder passwordEncoder, AuthAdmissionService authAdmissionService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.auth.hashing.pool-size:0}") int poolSize,
+                                  @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.authAdmissionService = authAdmissionService;
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), hashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = Timer.builder("auth.password.hash")
+            .description("Time spent hashing or verifying a password")
+            .tag("operation", "encode")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+            .description("Time spent hashing or verifying a password")
+            .tag("operation", "matches")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait")
+            .description("Time a password operation waits for a hashing thread")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+            .description("Password operations rejected because the hashing pool was saturated")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size())
+            .description("Password operations waiting for a hashing thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Hashing threads currently busy")
+            .register(meterRegistry);
+        log.info("Password hashing pool: {} threads, queue capacity {}", threads, queueCapacity);
+    }
+    
+    public Mono<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+    
+    public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+    
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+    
+    private <T> Mono<T> submit(Timer timer, Supplier<T> work) {
+        return Mono.defer(() -> {
+            long submittedAt = System.nanoTime();
+            try {
+                return Mono.fromFuture(CompletableFuture.supplyAsync(() -> {
+                    long startedAt = System.nanoTime();
+                    queueWaitTimer.record(Duration.ofNanos(startedAt - submittedAt));
+                    try {
+                        return work.get();
+                    } finally {
+                        long finishedAt = System.nanoTime();
+                        timer.record(Duration.ofNanos(finishedAt - startedAt));
+                        // Queue wait included, so a backlog shrinks the admission limit before requests time out
+                        authAdmissionService.recordHashLatency(finishedAt - submittedAt);
+                    }
+                }, executor));
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Authentication is busy, try again"));
+            }
+        });
+    }
+    
+    private static ThreadFactory hashingThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.shopping.service;
+
+import com.shopping.model.CartItem;
+import com.shopping.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Owns the shipping, tax and total rules shared by the cart summary and order creation.
+ * Thresholds and rates are read once from {@code app.pricing.*} and kept in minor units.
+ */
+@Slf4j
+@Service
+public class PricingService {
+    
+    private final Money freeShippingThreshold;
+    private final Money shippingFee;
+    private final long taxRatePpm;
+    
+    public PricingService(
+            @Value("${app.pricing.free-shipping-threshold:50.00}") BigDecimal freeShippingThreshold,
+            @Value("${app.pricing.shipping-fee:9.99}") BigDecimal shippingFee,
+            @Value("${app.pricing.tax-rate:0.08}") BigDecimal taxRate) {
+        this.freeShippingThreshold = Money.of(freeShippingThreshold);
+        this.shippingFee = Money.of(shippingFee);
+        // Parts per million keep rates such as 0.08875 exact; anything finer is rounded half up
+        this.taxRatePpm = taxRate.setScale(6, RoundingMode.HALF_UP).movePointRight(6).longValueExact();
+        log.info("Pricing rules: free shipping from {}, shipping fee {}, tax rate {}",
+            this.freeShippingThreshold, this.shippingFee, BigDecimal.valueOf(taxRatePpm, 6).stripTrailingZeros());
+    }
+    
+    public Money subtotal(Iterable<CartItem> items) {
+        long cents = 0L;
+        for (CartItem item : items) {
+            cents = Math.addExact(cents, item.lineTotal().cents());
+        }
+        return Money.ofCents(cents);
+    }
+    
+    public Money shipping(Money subtotal) {
+        return subtotal.isGreaterThanOrEqual(freeShippingThreshold) ? Money.ZERO : shippingFee;
+    }
+    
+    public Money tax(Money subtotal) {
+        return subtotal.timesRate(taxRatePpm);
+    }
+    
+    public PriceBreakdown price(Iterable<CartItem> items) {
+        return price(subtotal(items));
+    }
+    
+    public PriceBreakdown price(Money subtotal) {
+        Money shipping = shipping(subtotal);
+        Money tax = tax(subtotal);
+        return new PriceBreakdown(subtotal, shipping, tax, subtotal.plus(shipping).plus(tax));
+    }
+    
+    public record PriceBreakdown(Money subtotal, Money shipping, Money tax, Money total) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.shopping.service;
 
+import com.shopping.config.ReadReplicaRouter;
 import com.shopping.model.Product;
 import com.shopping.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,56 +18,57 @@ import java.util.UUID;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ReadReplicaRouter readReplicaRouter;
     
     public Flux<Product> getAllProducts() {
         log.debug("Getting all products");
-        return productRepository.findAll();
+        return readReplicaRouter.onReplica(productRepository.findAll());
     }
     
     public Flux<Product> getAllActiveProducts() {
         log.debug("Getting all active products");
-        return productRepository.findAllActive();
+        return readReplicaRouter.onReplica(productRepository.findAllActive());
     }
     
     public Mono<Product> getProductById(UUID id) {
         log.debug("Getting product by id: {}", id);
-        return productRepository.findById(id);
+        return readReplicaRouter.onReplica(productRepository.findById(id));
     }
     
     public Mono<Product> getProductBySku(String sku) {
         log.debug("Getting product by SKU: {}", sku);
-        return productRepository.findBySku(sku);
+        return readReplicaRouter.onReplica(productRepository.findBySku(sku));
     }
     
     public Flux<Product> getProductsByCategory(UUID categoryId) {
         log.debug("Getting products by category: {}", categoryId);
-        return productRepository.findByCategoryIdAndIsActiveTrue(categoryId);
+        return readReplicaRouter.onReplica(productRepository.findByCategoryIdAndIsActiveTrue(categoryId));
     }
     
     public Flux<Product> searchProducts(String name) {
         log.debug("Searching products by name: {}", name);
-        return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(name);
+        return readReplicaRouter.onReplica(productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(name));
     }
     
     public Flux<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
         log.debug("Getting products by price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceBetweenAndIsActiveTrue(minPrice, maxPrice);
+        return readReplicaRouter.onReplica(productRepository.findByPriceBetweenAndIsActiveTrue(minPrice, maxPrice));
     }
     
     public Flux<Product> getInStockProducts() {
         log.debug("Getting in-stock products");
-        return productRepository.findInStock();
+        return readReplicaRouter.onReplica(productRepository.findInStock());
     }
     
     public Flux<Product> getLatestProducts(int limit) {
         log.debug("Getting latest {} products", limit);
-        return productRepository.findLatestProducts(limit);
+        return readReplicaRouter.onReplica(productRepository.findLatestProducts(limit));
     }
     
     public Flux<Product> getProductsWithPagination(int page, int size) {
         log.debug("Getting products with pagination: page {}, size {}", page, size);
         int offset = page * size;
-        return productRepository.findAllWithPagination(size, offset);
+        return readReplicaRouter.onReplica(productRepository.findAllWithPagination(size, offset));
     }
     
     public Mono<Product> createProduct(Product product) {
@@ -83,7 +85,7 @@ public class ProductService {
                 }))
             .switchIfEmpty(Mono.just(product))
             .flatMap(p -> {
-                p.setId(UUID.randomUUID());
+                p.setId(null); // Assigned by the entity id generator on insert
                 return productRepository.save(p);
             });
     }
@@ -143,11 +145,11 @@ public class ProductService {
     
     public Mono<Long> countActiveProducts() {
         log.debug("Counting active products");
-        return productRepository.countActiveProducts();
+        return readReplicaRouter.onReplica(productRepository.countActiveProducts());
     }
     
     public Mono<Long> countProductsByCategory(UUID categoryId) {
         log.debug("Counting products by category: {}", categoryId);
-        return productRepository.countByCategoryId(categoryId);
+        return readReplicaRouter.onReplica(productRepository.countByCategoryId(categoryId));
     }
 }
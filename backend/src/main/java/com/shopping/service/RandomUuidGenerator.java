@@ -0,0 +1,14 @@
+package com.shopping.service;
+
+import java.util.UUID;
+
+/**
+ * Random UUID version 4, kept for comparison with {@link UuidV7Generator}.
+ */
+public class RandomUuidGenerator implements EntityIdGenerator {
+    
+    @Override
+    public UUID newId() {
+        return UUID.randomUUID();
+    }
+}
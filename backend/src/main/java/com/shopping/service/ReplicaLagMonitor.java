@@ -0,0 +1,69 @@
+package com.shopping.service;
+
+import com.shopping.config.ReadReplicaRouter;
+import com.shopping.repository.ReplicationStatusRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how far the read replica is behind the primary and takes it out of rotation while the
+ * lag exceeds {@code app.read-replica.max-lag} or the replica cannot be reached.
+ */
+@Slf4j
+@Service
+public class ReplicaLagMonitor {
+    
+    private final ReplicationStatusRepository replicationStatusRepository;
+    private final ReadReplicaRouter readReplicaRouter;
+    private final AtomicLong lagMillis = new AtomicLong();
+    
+    @Value("${app.read-replica.max-lag:10s}")
+    private Duration maxLag;
+    
+    public ReplicaLagMonitor(ReplicationStatusRepository replicationStatusRepository, ReadReplicaRouter readReplicaRouter,
+                             MeterRegistry meterRegistry) {
+        this.replicationStatusRepository = replicationStatusRepository;
+        this.readReplicaRouter = readReplicaRouter;
+        Gauge.builder("db.replica.lag", lagMillis, AtomicLong::get)
+            .description("Replication lag of the read replica")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.read-replica.lag-check-interval-ms:5000}")
+    public Mono<Void> checkLag() {
+        if (!readReplicaRouter.isEnabled()) {
+            return Mono.empty();
+        }
+        
+        return readReplicaRouter.onReplicaOnly(replicationStatusRepository.findReplayLag())
+            .doOnNext(lag -> {
+                lagMillis.set(lag.toMillis());
+                updateLagging(lag.compareTo(maxLag) > 0, lag.toMillis() + " ms");
+            })
+            .onErrorResume(e -> {
+                updateLagging(true, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+    
+    private void updateLagging(boolean lagging, String detail) {
+        if (lagging != readReplicaRouter.isLagging()) {
+            if (lagging) {
+                log.warn("Read replica taken out of rotation: {}", detail);
+            } else {
+                log.info("Read replica back in rotation: {}", detail);
+            }
+            readReplicaRouter.setLagging(lagging);
+        }
+    }
+}
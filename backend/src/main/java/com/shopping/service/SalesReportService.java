@@ -0,0 +1,37 @@
+package com.shopping.service;
+
+import com.shopping.dto.SalesRollupDto;
+import com.shopping.repository.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sales reporting backed by the hourly/daily rollup tables instead of scans over {@code orders}.
+ *
+ * Rollups are applied asynchronously from the ORDER_CREATED and ORDER_CANCELLED outbox events by
+ * {@link SalesRollupEventHandler}, in the buckets of the order's creation time, so they trail
+ * committed orders by the relay lag.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesReportService {
+    
+    private final SalesRollupRepository salesRollupRepository;
+    
+    public Flux<SalesRollupDto> getSales(SalesRollupRepository.Granularity granularity,
+                                         SalesRollupRepository.Dimension dimension,
+                                         UUID dimensionId, LocalDateTime from, LocalDateTime to) {
+        log.debug("Getting {} sales by {} from {} to {}", granularity, dimension, from, to);
+        
+        if (!from.isBefore(to)) {
+            return Flux.error(new IllegalArgumentException("from must be before to"));
+        }
+        return salesRollupRepository.findRange(granularity, dimension, dimensionId, from, to);
+    }
+}
@@ -0,0 +1,87 @@
+package com.shopping.service;
+
+import com.shopping.config.ShardRouter;
+import com.shopping.model.OutboxEvent;
+import com.shopping.repository.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the sales rollups up to date from the order outbox, outside the checkout and cancellation
+ * transactions, so concurrent checkouts do not queue on the shared per-category rollup rows.
+ *
+ * The order's items are read from the database the event came from (its shard when orders are
+ * sharded) and the rollups are updated on the primary in one transaction together with a marker
+ * row per order and event type, which makes redelivered events a no-op.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupEventHandler implements OutboxEventHandler {
+    
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+    
+    private final OrderService orderService;
+    private final SalesRollupRepository salesRollupRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionalOperator transactionalOperator;
+    
+    @Value("${app.outbox.retention:7d}")
+    private Duration retention;
+    
+    @Override
+    public boolean supports(String eventType) {
+        return OutboxService.ORDER_CREATED.equals(eventType) || OutboxService.ORDER_CANCELLED.equals(eventType);
+    }
+    
+    @Override
+    public Mono<Void> handle(OutboxEvent event) {
+        int sign = OutboxService.ORDER_CREATED.equals(event.getEventType()) ? 1 : -1;
+        
+        return orderService.findOrderItems(event.getAggregateId())
+            .collectList()
+            .flatMap(items -> {
+                if (items.isEmpty()) {
+                    log.warn("No items for order {}, skipping sales rollup for {}", event.getAggregateId(), event.getEventType());
+                    return Mono.empty();
+                }
+                // Items carry the order's creation time, which picks the rollup buckets
+                LocalDateTime orderedAt = items.get(0).getCreatedAt();
+                
+                Mono<Long> apply = salesRollupRepository.markApplied(event.getAggregateId(), event.getEventType())
+                    .flatMap(firstDelivery -> firstDelivery
+                        ? salesRollupRepository.apply(items, orderedAt, sign)
+                        : Mono.just(0L));
+                return shardRouter.onPrimary(transactionalOperator.transactional(apply));
+            })
+            .then();
+    }
+    
+    /**
+     * Markers only have to outlive redelivery, which stops once the event is published, so they are
+     * kept as long as published outbox events.
+     */
+    @Scheduled(cron = "${app.outbox.retention-cron:0 15 * * * *}")
+    public Mono<Void> deleteAppliedMarkers() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        return salesRollupRepository.deleteAppliedBefore(cutoff, CLEANUP_BATCH_SIZE)
+            .expand(deleted -> deleted >= CLEANUP_BATCH_SIZE
+                ? salesRollupRepository.deleteAppliedBefore(cutoff, CLEANUP_BATCH_SIZE)
+                : Mono.empty())
+            .reduce(0, Integer::sum)
+            .doOnNext(deleted -> {
+                if (deleted > 0) {
+                    log.info("Deleted {} applied sales rollup markers", deleted);
+                }
+            })
+            .then();
+    }
+}
@@ -1,6 +1,9 @@
 package com.shopping.service;
 
+import com.shopping.config.ReadReplicaRouter;
+import com.shopping.exception.CartConflictException;
 import com.shopping.model.CartItem;
+import com.shopping.model.Money;
 import com.shopping.model.Product;
 import com.shopping.model.ShoppingCart;
 import com.shopping.repository.CartItemRepository;
@@ -8,11 +11,17 @@ import com.shopping.repository.ProductRepository;
 import com.shopping.repository.ShoppingCartRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -23,6 +32,20 @@ public class ShoppingCartService {
     private final ShoppingCartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final StockReservationService reservationService;
+    private final ReadReplicaRouter readReplicaRouter;
+    private final TransactionalOperator transactionalOperator;
+    
+    @Value("${app.cart.max-update-retries:3}")
+    private int maxUpdateRetries;
+    
+    /**
+     * Looks up the cart without creating one, for read-only paths, so browsing does not leave
+     * empty carts behind.
+     */
+    public Mono<ShoppingCart> findCart(UUID userId) {
+        return cartRepository.findByUserId(userId);
+    }
     
     public Mono<ShoppingCart> getOrCreateCart(UUID userId) {
         log.debug("Getting or creating cart for user: {}", userId);
@@ -35,7 +58,6 @@ public class ShoppingCartService {
         log.debug("Creating new cart for user: {}", userId);
         
         ShoppingCart cart = ShoppingCart.builder()
-            .id(UUID.randomUUID())
             .userId(userId)
             .build();
         
@@ -45,8 +67,8 @@ public class ShoppingCartService {
     public Flux<CartItem> getCartItems(UUID userId) {
         log.debug("Getting cart items for user: {}", userId);
         
-        return getOrCreateCart(userId)
-            .flatMapMany(cart -> cartItemRepository.findByCartId(cart.getId()));
+        return readReplicaRouter.onReplica(userId, findCart(userId)
+            .flatMapMany(cart -> cartItemRepository.findByCartId(cart.getId())));
     }
     
     public Mono<CartItem> addItemToCart(UUID userId, UUID productId, int quantity) {
@@ -65,96 +87,196 @@ public class ShoppingCartService {
                             return Mono.error(new IllegalArgumentException("Insufficient stock"));
                         }
                         
-                        return cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                            .flatMap(existingItem -> {
-                                // Update existing item
-                                int newQuantity = existingItem.getQuantity() + quantity;
-                                if (product.getStockQuantity() < newQuantity) {
-                                    return Mono.error(new IllegalArgumentException("Insufficient stock"));
-                                }
-                                existingItem.setQuantity(newQuantity);
-                                return cartItemRepository.save(existingItem);
-                            })
-                            .switchIfEmpty(
-                                // Create new item
-                                Mono.defer(() -> {
-                                    CartItem newItem = CartItem.builder()
-                                        .id(UUID.randomUUID())
-                                        .cartId(cart.getId())
-                                        .productId(productId)
-                                        .quantity(quantity)
-                                        .unitPrice(product.getPrice())
-                                        .build();
-                                    
-                                    return cartItemRepository.save(newItem);
+                        // Re-read the line on each attempt so concurrent increments are not lost; the hold and
+                        // the line commit together, so an attempt that loses a race leaves no hold behind
+                        return Mono.defer(() -> transactionalOperator.transactional(
+                                cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+                                .flatMap(existingItem -> {
+                                    // Update existing item
+                                    int newQuantity = existingItem.getQuantity() + quantity;
+                                    if (product.getStockQuantity() < newQuantity) {
+                                        return Mono.error(new IllegalArgumentException("Insufficient stock"));
+                                    }
+                                    existingItem.setQuantity(newQuantity);
+                                    return reservationService.reserve(cart.getId(), productId, newQuantity)
+                                        .then(cartItemRepository.save(existingItem));
                                 })
-                            );
+                                .switchIfEmpty(
+                                    // Create new item
+                                    Mono.defer(() -> {
+                                        CartItem newItem = CartItem.builder()
+                                            .cartId(cart.getId())
+                                            .productId(productId)
+                                            .quantity(quantity)
+                                            .unitPrice(product.getPrice())
+                                            .build();
+                                        
+                                        return reservationService.reserve(cart.getId(), productId, quantity)
+                                            .then(cartItemRepository.save(newItem));
+                                    })
+                                )))
+                            .retryWhen(concurrentModificationRetry())
+                            .onErrorResume(this::isConcurrentModification,
+                                e -> conflictWithCurrentState(cart.getId(), productId))
+                            .flatMap(savedItem -> touchCart(cart.getId()).thenReturn(savedItem));
                     })
-            );
+            )
+            .doFinally(signal -> readReplicaRouter.recordWrite(userId));
     }
     
     public Mono<CartItem> updateCartItem(UUID userId, UUID productId, int quantity) {
-        log.debug("Updating cart item - User: {}, Product: {}, Quantity: {}", userId, productId, quantity);
+        return updateCartItem(userId, productId, quantity, null);
+    }
+    
+    /**
+     * Sets the quantity of a cart line. When {@code expectedVersion} is given the update only applies
+     * to that version of the line; otherwise concurrent edits are retried a bounded number of times.
+     * Both cases end in a {@link CartConflictException} carrying the current line state.
+     */
+    public Mono<CartItem> updateCartItem(UUID userId, UUID productId, int quantity, Long expectedVersion) {
+        log.debug("Updating cart item - User: {}, Product: {}, Quantity: {}, Version: {}", userId, productId, quantity, expectedVersion);
         
         if (quantity <= 0) {
             return removeItemFromCart(userId, productId).then(Mono.empty());
         }
         
-        return getOrCreateCart(userId)
-            .flatMap(cart -> 
-                cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+        return findCart(userId)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Cart item not found")))
+            .flatMap(cart -> {
+                // Each attempt sets the hold and saves the line in one transaction, so a save that loses to a
+                // concurrent edit rolls its hold back and the hold always matches the stored quantity
+                Mono<CartItem> update = Mono.defer(() -> transactionalOperator.transactional(
+                    cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                     .switchIfEmpty(Mono.error(new IllegalArgumentException("Cart item not found")))
-                    .flatMap(cartItem -> 
-                        productRepository.findById(productId)
+                    .flatMap(cartItem -> {
+                        if (expectedVersion != null && !expectedVersion.equals(cartItem.getVersion())) {
+                            return Mono.error(new CartConflictException(
+                                "Cart item was modified by another request", cart.getId(), cartItem));
+                        }
+                        
+                        return productRepository.findById(productId)
                             .flatMap(product -> {
                                 if (product.getStockQuantity() < quantity) {
                                     return Mono.error(new IllegalArgumentException("Insufficient stock"));
                                 }
                                 
                                 cartItem.setQuantity(quantity);
-                                return cartItemRepository.save(cartItem);
-                            })
-                    )
-            );
+                                return reservationService.reserve(cart.getId(), productId, quantity)
+                                    .then(cartItemRepository.save(cartItem));
+                            });
+                    })));
+                
+                // A version check requested by the client is reported, not retried
+                return (expectedVersion == null ? update.retryWhen(concurrentModificationRetry()) : update)
+                    .onErrorResume(this::isConcurrentModification,
+                        e -> conflictWithCurrentState(cart.getId(), productId))
+                    .flatMap(savedItem -> touchCart(cart.getId()).thenReturn(savedItem));
+            })
+            .doFinally(signal -> readReplicaRouter.recordWrite(userId));
     }
     
     public Mono<Void> removeItemFromCart(UUID userId, UUID productId) {
         log.debug("Removing item from cart - User: {}, Product: {}", userId, productId);
         
-        return getOrCreateCart(userId)
-            .flatMap(cart -> cartItemRepository.deleteByCartIdAndProductId(cart.getId(), productId));
+        return findCart(userId)
+            .flatMap(cart -> cartItemRepository.deleteByCartIdAndProductId(cart.getId(), productId)
+                .then(reservationService.release(cart.getId(), productId))
+                .then(touchCart(cart.getId())))
+            .doFinally(signal -> readReplicaRouter.recordWrite(userId));
     }
     
     public Mono<Void> clearCart(UUID userId) {
         log.debug("Clearing cart for user: {}", userId);
         
-        return getOrCreateCart(userId)
-            .flatMap(cart -> cartItemRepository.deleteByCartId(cart.getId()));
+        return findCart(userId)
+            .flatMap(cart -> cartItemRepository.deleteByCartId(cart.getId())
+                .then(reservationService.releaseAll(cart.getId()))
+                .then(touchCart(cart.getId())))
+            .doFinally(signal -> readReplicaRouter.recordWrite(userId));
+    }
+    
+    /**
+     * Empties a cart known by id with a single delete; used by checkout inside its transaction.
+     */
+    public Mono<Void> clearCartItems(UUID cartId) {
+        log.debug("Clearing cart items for cart: {}", cartId);
+        
+        return cartItemRepository.deleteByCartId(cartId)
+            .then(reservationService.releaseAll(cartId))
+            .then(touchCart(cartId));
+    }
+    
+    /**
+     * Puts lines taken by a checkout that failed afterwards back into the cart, adding to any line
+     * of the same product created in the meantime. Holds are not re-created.
+     */
+    public Mono<Void> restoreCartItems(UUID cartId, List<CartItem> items) {
+        log.debug("Restoring {} items to cart: {}", items.size(), cartId);
+        
+        return Flux.fromIterable(items)
+            .concatMap(item -> cartItemRepository.findByCartIdAndProductId(cartId, item.getProductId())
+                .flatMap(existingItem -> {
+                    existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
+                    return cartItemRepository.save(existingItem);
+                })
+                .switchIfEmpty(Mono.defer(() -> cartItemRepository.save(CartItem.builder()
+                    .cartId(cartId)
+                    .productId(item.getProductId())
+                    .quantity(item.getQuantity())
+                    .unitPrice(item.getUnitPrice())
+                    .build()))))
+            .then(touchCart(cartId));
     }
     
     public Mono<BigDecimal> getCartTotal(UUID userId) {
         log.debug("Getting cart total for user: {}", userId);
         
         return getCartItems(userId)
-            .map(CartItem::getTotalPrice)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+            .map(CartItem::lineTotal)
+            .reduce(Money.ZERO, Money::plus)
+            .map(Money::toBigDecimal);
     }
     
     public Mono<Long> getCartItemCount(UUID userId) {
         log.debug("Getting cart item count for user: {}", userId);
         
-        return getOrCreateCart(userId)
-            .flatMap(cart -> cartItemRepository.countByCartId(cart.getId()));
+        return readReplicaRouter.onReplica(userId, findCart(userId)
+                .flatMap(cart -> cartItemRepository.countByCartId(cart.getId())))
+            .defaultIfEmpty(0L);
     }
     
     public Mono<Boolean> validateCartStock(UUID userId) {
         log.debug("Validating cart stock for user: {}", userId);
         
-        return getCartItems(userId)
+        return readReplicaRouter.onReplica(userId, getCartItems(userId)
             .flatMap(cartItem -> 
                 productRepository.findById(cartItem.getProductId())
-                    .map(product -> product.getStockQuantity() >= cartItem.getQuantity())
+                    .flatMap(product -> reservationService.getAvailableStock(product, cartItem.getCartId()))
+                    .map(availableStock -> availableStock >= cartItem.getQuantity())
             )
-            .all(stockAvailable -> stockAvailable);
+            .all(stockAvailable -> stockAvailable));
+    }
+    
+    private Mono<Void> touchCart(UUID cartId) {
+        return cartRepository.incrementVersion(cartId).then();
+    }
+    
+    private Retry concurrentModificationRetry() {
+        return Retry.max(maxUpdateRetries)
+            .filter(e -> e instanceof OptimisticLockingFailureException || e instanceof DuplicateKeyException)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+    
+    private boolean isConcurrentModification(Throwable e) {
+        return e instanceof OptimisticLockingFailureException || e instanceof DuplicateKeyException;
+    }
+    
+    private Mono<CartItem> conflictWithCurrentState(UUID cartId, UUID productId) {
+        log.debug("Concurrent modification on cart item - Cart: {}, Product: {}", cartId, productId);
+        
+        return cartItemRepository.findByCartIdAndProductId(cartId, productId)
+            .defaultIfEmpty(CartItem.builder().cartId(cartId).productId(productId).quantity(0).build())
+            .flatMap(current -> Mono.error(new CartConflictException(
+                "Cart item was modified concurrently", cartId, current)));
     }
 }
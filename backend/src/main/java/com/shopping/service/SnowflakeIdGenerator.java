@@ -0,0 +1,94 @@
+package com.shopping.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 63-bit id generator: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id
+ * and 12 bits of per-millisecond sequence.
+ *
+ * The last timestamp and sequence are packed into one {@link AtomicLong} and advanced with CAS, so ids
+ * are unique and strictly increasing per node without any lock. When a millisecond's sequence is
+ * exhausted, or the clock moves backwards, the generator keeps counting on the last timestamp it
+ * issued instead of waiting.
+ *
+ * Uniqueness across nodes rests on every instance having its own {@code app.id.node-id}. A node id
+ * derived from the host name can collide, so it is only accepted in the dev and test profiles.
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator {
+    
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+    private final long nodeId;
+    private final AtomicLong state = new AtomicLong();
+    
+    public SnowflakeIdGenerator(@Value("${app.id.node-id:-1}") long configuredNodeId, Environment environment) {
+        if (configuredNodeId < 0 && !environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+            throw new IllegalStateException(
+                "app.id.node-id (NODE_ID) must be set to a value unique per instance outside the dev profile");
+        }
+        this.nodeId = configuredNodeId >= 0 ? configuredNodeId : deriveNodeId();
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        log.info("Snowflake id generator using node id {}", nodeId);
+    }
+    
+    public long nextId() {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+            
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond to stay monotonic
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+        } while (!state.compareAndSet(current, next));
+        
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+    
+    public String nextOrderNumber() {
+        return "ORD-" + nextId();
+    }
+    
+    public long getNodeId() {
+        return nodeId;
+    }
+    
+    private static long deriveNodeId() {
+        String host = System.getenv("HOSTNAME");
+        try {
+            if (host == null || host.isBlank()) {
+                host = InetAddress.getLocalHost().getHostName();
+            }
+        } catch (Exception e) {
+            log.warn("Could not resolve host name for node id: {}", e.getMessage());
+            host = "localhost";
+        }
+        log.warn("app.id.node-id not set, deriving node id from host name '{}'", host);
+        return (host.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.shopping.service;
+
+import com.shopping.model.Product;
+import com.shopping.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Optional stock holds for cart lines.
+ *
+ * When enabled, adding or updating a cart line holds its quantity for {@code app.cart.reservations.ttl},
+ * so the available stock seen by other carts is the product stock minus every live hold.
+ * Expired holds are released in batches by a background sweeper.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    
+    private final StockReservationRepository reservationRepository;
+    
+    @Value("${app.cart.reservations.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.cart.reservations.ttl:15m}")
+    private Duration ttl;
+    
+    @Value("${app.cart.reservations.sweep-batch-size:500}")
+    private int sweepBatchSize;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Holds {@code quantity} of the product for the cart line. Must be called inside the transaction
+     * that writes the cart line: the product row lock taken here is what serializes competing holds,
+     * and it is only released on commit or rollback.
+     */
+    public Mono<Void> reserve(UUID cartId, UUID productId, int quantity) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        log.debug("Reserving stock - Cart: {}, Product: {}, Quantity: {}", cartId, productId, quantity);
+        
+        return reservationRepository.lockProduct(productId)
+            .then(reservationRepository.reserve(cartId, productId, quantity, ttl.toSeconds()))
+            .flatMap(rows -> rows == 0
+                ? Mono.<Void>error(new IllegalArgumentException("Insufficient stock"))
+                : Mono.<Void>empty());
+    }
+    
+    public Mono<Integer> getAvailableStock(Product product, UUID cartId) {
+        if (!enabled) {
+            return Mono.just(product.getStockQuantity());
+        }
+        return reservationRepository.getAvailableStockForCart(product.getId(), cartId)
+            .map(Long::intValue);
+    }
+    
+    public Mono<Void> release(UUID cartId, UUID productId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        log.debug("Releasing stock reservation - Cart: {}, Product: {}", cartId, productId);
+        return reservationRepository.deleteByCartIdAndProductId(cartId, productId).then();
+    }
+    
+    public Mono<Void> releaseAll(UUID cartId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        log.debug("Releasing all stock reservations for cart: {}", cartId);
+        return reservationRepository.deleteByCartId(cartId).then();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cart.reservations.sweep-interval-ms:30000}")
+    public Mono<Void> releaseExpiredReservations() {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        
+        return reservationRepository.deleteExpired(sweepBatchSize)
+            .expand(released -> released >= sweepBatchSize
+                ? reservationRepository.deleteExpired(sweepBatchSize)
+                : Mono.empty())
+            .reduce(0, Integer::sum)
+            .doOnNext(released -> {
+                if (released > 0) {
+                    log.info("Released {} expired stock reservations", released);
+                }
+            })
+            .then();
+    }
+}
@@ -0,0 +1,99 @@
+package com.shopping.service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-key token buckets in a fixed array of lock-free stripes.
+ *
+ * Keys are hashed onto {@code stripes} slots and keys sharing a slot share a bucket, so memory stays
+ * constant however many clients show up. The hash is seeded per instance, so colliding keys cannot
+ * be precomputed, but a client that controls many distinct keys still drains many stripes and
+ * throttles whoever shares them. Use it only for keys that are costly to vary, such as client IPs;
+ * see {@link KeyedTokenBuckets} for exact per-key limits. Each slot packs the last refill time (ms,
+ * upper 40 bits) and the available milli-tokens (lower 24 bits) into one long updated with
+ * compare-and-set.
+ */
+public final class StripedTokenBuckets {
+    
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+    static final long EMPTY = -1;
+    
+    // Starting the clock well in the past makes untouched (zero) slots read as full buckets
+    private static final long EPOCH_NANOS = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    
+    private final long seed = new SecureRandom().nextLong();
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long capacity;
+    private final double refillPerMilli;
+    
+    public StripedTokenBuckets(int stripes, int capacity, double refillPerSecond) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = capacityOf(capacity);
+        // milli-tokens per millisecond equals tokens per second
+        this.refillPerMilli = refillPerSecond;
+    }
+    
+    /**
+     * Takes one token from the bucket of {@code key}; false when it is empty.
+     */
+    public boolean tryAcquire(String key) {
+        int index = (int) seededHash(key) & mask;
+        long now = now();
+        
+        for (;;) {
+            long current = slots.get(index);
+            long next = take(current, now, capacity, refillPerMilli);
+            if (next == EMPTY) {
+                return false;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return true;
+            }
+        }
+    }
+    
+    static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - EPOCH_NANOS);
+    }
+    
+    static long capacityOf(int tokens) {
+        return Math.min(tokens * ONE_TOKEN, TOKEN_MASK);
+    }
+    
+    /**
+     * Refills a packed bucket state up to {@code now} and takes one token from it; {@code EMPTY}
+     * (-1) when no whole token is available.
+     */
+    static long take(long current, long now, long capacity, double refillPerMilli) {
+        long last = current >>> TOKEN_BITS;
+        long tokens = current & TOKEN_MASK;
+        
+        long gained = (long) ((now - last) * refillPerMilli);
+        // Keep the old timestamp while nothing was gained, so slow refill rates still accrue
+        if (gained > 0) {
+            tokens = Math.min(capacity, tokens + gained);
+            last = now;
+        }
+        if (tokens < ONE_TOKEN) {
+            return EMPTY;
+        }
+        return (last << TOKEN_BITS) | (tokens - ONE_TOKEN);
+    }
+    
+    private long seededHash(String key) {
+        long hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        hash *= 0xBF58476D1CE4E5B9L;
+        return hash ^ (hash >>> 32);
+    }
+}
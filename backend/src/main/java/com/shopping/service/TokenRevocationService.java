@@ -0,0 +1,187 @@
+package com.shopping.service;
+
+import com.shopping.repository.TokenRevocationRepository;
+import com.shopping.repository.TokenRevocationRepository.Kind;
+import com.shopping.repository.TokenRevocationRepository.Revocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JWT revocation backed by the {@code token_revocations} deny-list.
+ *
+ * Every request first checks an in-memory Bloom filter of revoked token ids and user ids, so the
+ * common not-revoked case never touches the database; only filter hits are confirmed with a query.
+ * Each node adds revocations made elsewhere by polling for recent entries every
+ * {@code sync-interval-ms}, and rebuilds the filter from the live entries every
+ * {@code rebuild-interval-ms} so expired entries stop occupying it. Until the first build finishes
+ * every check goes to the database.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    
+    private final TokenRevocationRepository repository;
+    private final Counter negativeCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter revokedCounter;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastSyncAt;
+    
+    @Value("${app.jwt.expiration}")
+    private long jwtExpiration;
+    
+    @Value("${app.jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+    
+    @Value("${app.jwt.revocation.false-positive-probability:0.001}")
+    private double falsePositiveProbability;
+    
+    // Overlap between incremental syncs, covering clock skew between nodes and in-flight inserts
+    @Value("${app.jwt.revocation.sync-overlap:30s}")
+    private Duration syncOverlap;
+    
+    public TokenRevocationService(TokenRevocationRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.negativeCounter = Counter.builder("auth.revocation.checks").tag("result", "negative").register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("auth.revocation.checks").tag("result", "false_positive").register(meterRegistry);
+        this.revokedCounter = Counter.builder("auth.revocation.checks").tag("result", "revoked").register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.entries", this, service -> service.filter != null ? service.filter.entries() : 0)
+            .description("Entries in the revocation Bloom filter")
+            .register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.size", this, service -> service.filter != null ? service.filter.sizeInBytes() : 0)
+            .description("Memory used by the revocation Bloom filter")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.fpp", this, service -> service.filter != null ? service.filter.expectedFalsePositiveProbability() : 0)
+            .description("Expected false-positive probability of the revocation Bloom filter at its current fill")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Revokes one token (logout). Tokens without a jti cannot be revoked individually.
+     */
+    public Mono<Void> revokeToken(Jwt jwt) {
+        if (jwt.getId() == null) {
+            return Mono.empty();
+        }
+        UUID tokenId = UUID.fromString(jwt.getId());
+        LocalDateTime expiresAt = toLocal(jwt.getExpiresAt());
+        return record(new Revocation(Kind.TOKEN, tokenId, LocalDateTime.now(), expiresAt));
+    }
+    
+    /**
+     * Revokes every token issued to a user so far (deactivation, deletion).
+     */
+    public Mono<Void> revokeUser(UUID userId) {
+        // Token iat has second precision, so round up to cover tokens issued earlier in this second
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        return record(new Revocation(Kind.USER, userId, revokedAt, revokedAt.plus(jwtExpiration, ChronoUnit.MILLIS)));
+    }
+    
+    public Mono<Boolean> isRevoked(Jwt jwt) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        UUID tokenId = jwt.getId() != null ? UUID.fromString(jwt.getId()) : null;
+        
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(userId) && (tokenId == null || !current.mightContain(tokenId))) {
+            negativeCounter.increment();
+            return Mono.just(false);
+        }
+        
+        LocalDateTime issuedAt = toLocal(jwt.getIssuedAt());
+        return repository.findForToken(tokenId, userId, LocalDateTime.now())
+            .any(revocation -> revocation.kind() == Kind.TOKEN || !issuedAt.isAfter(revocation.revokedAt()))
+            .doOnNext(revoked -> {
+                if (revoked) {
+                    revokedCounter.increment();
+                } else if (current != null) {
+                    falsePositiveCounter.increment();
+                }
+            });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild().subscribe();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}",
+               initialDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}")
+    public Mono<Void> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        
+        LocalDateTime startedAt = LocalDateTime.now();
+        return repository.deleteExpired(startedAt)
+            .thenMany(repository.findLive(startedAt))
+            .collectList()
+            .doOnNext(revocations -> {
+                BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, 2L * revocations.size()), falsePositiveProbability);
+                revocations.forEach(revocation -> rebuilt.put(revocation.subjectId()));
+                filter = rebuilt;
+                lastSyncAt = startedAt;
+                log.info("Rebuilt token revocation filter with {} entries ({} KB)", revocations.size(), rebuilt.sizeInBytes() / 1024);
+            })
+            // Pick up what was revoked while the snapshot was loading
+            .then(Mono.defer(this::sync))
+            .onErrorResume(e -> {
+                log.error("Token revocation filter rebuild failed: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .doFinally(signal -> rebuilding.set(false));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:5000}")
+    public Mono<Void> sync() {
+        BloomFilter current = filter;
+        LocalDateTime since = lastSyncAt;
+        if (current == null || since == null) {
+            return Mono.empty();
+        }
+        
+        LocalDateTime startedAt = LocalDateTime.now();
+        return repository.findRevokedSince(since.minus(syncOverlap))
+            .doOnNext(revocation -> current.put(revocation.subjectId()))
+            .then(Mono.fromRunnable(() -> lastSyncAt = startedAt))
+            .onErrorResume(e -> {
+                log.warn("Token revocation sync failed: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+    
+    private Mono<Void> record(Revocation revocation) {
+        return repository.save(revocation)
+            .doOnSuccess(saved -> {
+                BloomFilter current = filter;
+                if (current != null) {
+                    current.put(revocation.subjectId());
+                }
+                log.info("Revoked {} {}", revocation.kind() == Kind.TOKEN ? "token" : "tokens of user", revocation.subjectId());
+            });
+    }
+    
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -1,59 +1,114 @@
 package com.shopping.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopping.config.ReadReplicaRouter;
 import com.shopping.model.User;
 import com.shopping.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UserService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final EntityIdGenerator entityIdGenerator;
+    private final PasswordHashingService passwordHashingService;
+    private final ReadReplicaRouter readReplicaRouter;
+    private final TokenRevocationService tokenRevocationService;
+    
+    // Short-lived profile caches; an in-flight load is dropped by invalidation, so writes are never undone
+    private final AsyncCache<UUID, User> usersById;
+    private final AsyncCache<String, User> usersByEmail;
+    
+    public UserService(UserRepository userRepository,
+                       EntityIdGenerator entityIdGenerator,
+                       PasswordHashingService passwordHashingService,
+                       ReadReplicaRouter readReplicaRouter,
+                       TokenRevocationService tokenRevocationService,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.users.cache.ttl:60s}") Duration cacheTtl,
+                       @Value("${app.users.cache.max-size:10000}") long cacheSize) {
+        this.userRepository = userRepository;
+        this.entityIdGenerator = entityIdGenerator;
+        this.passwordHashingService = passwordHashingService;
+        this.readReplicaRouter = readReplicaRouter;
+        this.tokenRevocationService = tokenRevocationService;
+        this.usersById = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .buildAsync();
+        this.usersByEmail = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "users.byEmail");
+    }
     
     public Flux<User> getAllUsers() {
         log.debug("Getting all users");
-        return userRepository.findAll();
+        return readReplicaRouter.onReplica(userRepository.findAll());
     }
     
     public Flux<User> getAllActiveUsers() {
         log.debug("Getting all active users");
-        return userRepository.findAllActive();
+        return readReplicaRouter.onReplica(userRepository.findAllActive());
     }
     
     public Mono<User> getUserById(UUID id) {
         log.debug("Getting user by id: {}", id);
-        return userRepository.findById(id);
+        return Mono.fromFuture(() -> usersById.get(id, (key, executor) ->
+            readReplicaRouter.onReplica(id, userRepository.findById(id)).toFuture()));
     }
     
     public Mono<User> getUserByEmail(String email) {
         log.debug("Getting user by email: {}", email);
-        return userRepository.findByEmail(email);
+        return Mono.fromFuture(() -> usersByEmail.get(email, (key, executor) ->
+            userRepository.findByEmail(email).toFuture()));
     }
     
+    /**
+     * Registers a user in a single insert guarded by the unique email constraint; a taken email fails
+     * with 409. Emails already in the profile cache are rejected before paying for the password hash.
+     */
     public Mono<User> createUser(User user) {
         log.debug("Creating user with email: {}", user.getEmail());
         
-        return userRepository.existsByEmail(user.getEmail())
-            .flatMap(exists -> {
-                if (exists) {
-                    return Mono.error(new IllegalArgumentException("User with email already exists"));
+        return isKnownEmail(user.getEmail())
+            .flatMap(known -> {
+                if (known) {
+                    return Mono.<User>error(emailTaken());
                 }
                 
-                // Hash password
-                user.setPasswordHash(passwordEncoder.encode(user.getPasswordHash()));
-                user.setId(UUID.randomUUID());
-                
-                return userRepository.save(user);
-            });
+                // Hash password off the event loop
+                return passwordHashingService.encode(user.getPasswordHash())
+                    .flatMap(passwordHash -> userRepository.insertIfEmailAbsent(
+                        entityIdGenerator.newId(),
+                        user.getEmail(),
+                        passwordHash,
+                        user.getFirstName(),
+                        user.getLastName(),
+                        user.getPhone(),
+                        (user.getRole() != null ? user.getRole() : User.UserRole.CUSTOMER).name(),
+                        !Boolean.FALSE.equals(user.getIsActive())))
+                    .switchIfEmpty(Mono.error(this::emailTaken));
+            })
+            .doOnNext(created -> readReplicaRouter.recordWrite(created.getId()));
     }
     
     public Mono<User> updateUser(UUID id, User user) {
@@ -69,17 +124,28 @@ public class UserService {
                 existingUser.setIsActive(user.getIsActive());
                 
                 // Only update password if provided
-                if (user.getPasswordHash() != null && !user.getPasswordHash().isEmpty()) {
-                    existingUser.setPasswordHash(passwordEncoder.encode(user.getPasswordHash()));
-                }
+                Mono<User> save = user.getPasswordHash() == null || user.getPasswordHash().isEmpty()
+                    ? userRepository.save(existingUser)
+                    : passwordHashingService.encode(user.getPasswordHash())
+                        .flatMap(passwordHash -> {
+                            existingUser.setPasswordHash(passwordHash);
+                            return userRepository.save(existingUser);
+                        });
                 
-                return userRepository.save(existingUser);
+                return save
+                    .flatMap(saved -> Boolean.FALSE.equals(saved.getIsActive())
+                        ? tokenRevocationService.revokeUser(id).thenReturn(saved)
+                        : Mono.just(saved))
+                    .doFinally(signal -> userChanged(id, existingUser.getEmail()));
             });
     }
     
     public Mono<Void> deleteUser(UUID id) {
         log.debug("Deleting user with id: {}", id);
-        return userRepository.deleteById(id);
+        return userRepository.findById(id)
+            .flatMap(user -> userRepository.deleteById(id)
+                .then(tokenRevocationService.revokeUser(id))
+                .doFinally(signal -> userChanged(id, user.getEmail())));
     }
     
     public Mono<Void> deactivateUser(UUID id) {
@@ -89,31 +155,66 @@ public class UserService {
             .switchIfEmpty(Mono.error(new IllegalArgumentException("User not found")))
             .flatMap(user -> {
                 user.setIsActive(false);
-                return userRepository.save(user);
-            })
-            .then();
+                return userRepository.save(user)
+                    .then(tokenRevocationService.revokeUser(id))
+                    .doFinally(signal -> userChanged(id, user.getEmail()));
+            });
     }
     
     public Flux<User> searchUsersByName(String name) {
         log.debug("Searching users by name: {}", name);
-        return userRepository.findByNameContainingIgnoreCase(name);
+        return readReplicaRouter.onReplica(userRepository.findByNameContainingIgnoreCase(name));
     }
     
     public Flux<User> getUsersByRole(User.UserRole role) {
         log.debug("Getting users by role: {}", role);
-        return userRepository.findByRole(role);
+        return readReplicaRouter.onReplica(userRepository.findByRole(role));
     }
     
     public Mono<Long> countActiveUsers() {
         log.debug("Counting active users");
-        return userRepository.countActiveUsers();
+        return readReplicaRouter.onReplica(userRepository.countActiveUsers());
+    }
+    
+    /**
+     * Looks the user up once and checks the password against that row; empty when the email is
+     * unknown or the password does not match.
+     */
+    public Mono<User> authenticate(String email, String rawPassword) {
+        log.debug("Authenticating user: {}", email);
+        
+        return getUserByEmail(email)
+            .filterWhen(user -> passwordHashingService.matches(rawPassword, user.getPasswordHash()));
     }
     
     public Mono<Boolean> validatePassword(String email, String rawPassword) {
         log.debug("Validating password for email: {}", email);
         
-        return userRepository.findByEmail(email)
-            .map(user -> passwordEncoder.matches(rawPassword, user.getPasswordHash()))
-            .defaultIfEmpty(false);
+        return authenticate(email, rawPassword)
+            .hasElement();
+    }
+    
+    private Mono<Boolean> isKnownEmail(String email) {
+        CompletableFuture<User> cached = usersByEmail.getIfPresent(email);
+        if (cached == null) {
+            return Mono.just(false);
+        }
+        return Mono.fromFuture(cached)
+            .hasElement()
+            .onErrorReturn(false);
+    }
+    
+    private ResponseStatusException emailTaken() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "User with email already exists");
+    }
+    
+    /**
+     * Drops the user from both caches. Emails cannot be changed and the email cache is only filled by
+     * exact lookups, so the stored email is the only key that can point at this user.
+     */
+    private void userChanged(UUID id, String email) {
+        usersById.synchronous().invalidate(id);
+        usersByEmail.synchronous().invalidate(email);
+        readReplicaRouter.recordWrite(id);
     }
 }
@@ -0,0 +1,133 @@
+-- Monthly range partitioning of orders and order_items on created_at.
+-- Items carry their order's created_at, so both tables prune and join partition by partition.
+-- Partitioned tables cannot be referenced by foreign keys without the partition key, so the
+-- order_items -> orders reference is kept by the application (items are only written with their order).
+-- The references to users and products are added by db/primary/V10_1, which order shards do not run.
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- Creates the monthly partition of parent_table containing month_start, if missing
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table TEXT, month_start DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := parent_table || '_p' || to_char(month_start, 'YYYYMM');
+    range_start DATE := date_trunc('month', month_start)::DATE;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent_table, range_start, (range_start + INTERVAL '1 month')::DATE);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Ensures partitions exist for the current month and the next months_ahead months; returns how many were created
+CREATE OR REPLACE FUNCTION ensure_order_partitions(months_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    created INTEGER := 0;
+    month_start DATE;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        month_start := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+        IF create_monthly_partition('orders', month_start) THEN
+            created := created + 1;
+        END IF;
+        IF create_monthly_partition('order_items', month_start) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches partitions entirely older than keep_months and moves them to the archive schema; returns how many
+CREATE OR REPLACE FUNCTION archive_order_partitions(keep_months INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    archived INTEGER := 0;
+    cutoff DATE := (date_trunc('month', CURRENT_DATE) - make_interval(months => keep_months))::DATE;
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT parent.relname AS parent_table, child.relname AS partition_name
+        FROM pg_inherits i
+        JOIN pg_class parent ON parent.oid = i.inhparent
+        JOIN pg_class child ON child.oid = i.inhrelid
+        JOIN pg_namespace ns ON ns.oid = child.relnamespace
+        WHERE parent.relname IN ('orders', 'order_items')
+          AND ns.nspname = current_schema()
+          AND child.relname ~ '_p[0-9]{6}$'
+          AND to_date(right(child.relname, 6), 'YYYYMM') < cutoff
+        ORDER BY child.relname
+    LOOP
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', part.parent_table, part.partition_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA archive', part.partition_name);
+        archived := archived + 1;
+    END LOOP;
+    RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Move the existing tables aside
+ALTER TABLE order_items RENAME TO order_items_unpartitioned;
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+
+UPDATE orders_unpartitioned SET created_at = COALESCE(created_at, updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+
+-- Recreate them partitioned, with the same columns, defaults and checks
+CREATE TABLE orders (LIKE orders_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE orders ALTER COLUMN created_at SET NOT NULL;
+
+CREATE TABLE order_items (LIKE order_items_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE order_items ALTER COLUMN created_at SET NOT NULL;
+
+-- Catch-all for rows outside the pre-created range (e.g. clock skew); kept empty by the maintenance job
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+CREATE TABLE order_items_default PARTITION OF order_items DEFAULT;
+
+-- Partitions covering existing data plus the next three months
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM orders_unpartitioned), CURRENT_DATE))::DATE;
+BEGIN
+    WHILE month_start < date_trunc('month', CURRENT_DATE)::DATE LOOP
+        PERFORM create_monthly_partition('orders', month_start);
+        PERFORM create_monthly_partition('order_items', month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    PERFORM ensure_order_partitions(3);
+END;
+$$;
+
+-- Copy the data; items take the created_at of their order
+INSERT INTO orders SELECT * FROM orders_unpartitioned;
+
+INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total_price, created_at)
+SELECT oi.id, oi.order_id, oi.product_id, oi.quantity, oi.unit_price, oi.total_price, o.created_at
+FROM order_items_unpartitioned oi
+JOIN orders_unpartitioned o ON o.id = oi.order_id;
+
+DROP TABLE order_items_unpartitioned;
+DROP TABLE orders_unpartitioned;
+
+-- Keys and indexes, added once the old tables (and their index names) are gone; created on every partition
+ALTER TABLE orders ADD PRIMARY KEY (id, created_at);
+ALTER TABLE order_items ADD PRIMARY KEY (id, created_at);
+
+CREATE INDEX idx_orders_user_created ON orders(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_orders_status ON orders(status);
+CREATE INDEX idx_orders_created ON orders(created_at);
+CREATE INDEX idx_order_items_order ON order_items(order_id, created_at);
+CREATE INDEX idx_order_items_product ON order_items(product_id);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'orders' AND column_name = 'order_number') THEN
+        -- Unique indexes on a partitioned table must include the partition key; order numbers are
+        -- Snowflake ids and unique by construction, this index serves lookups
+        CREATE INDEX idx_orders_order_number ON orders(order_number);
+    END IF;
+END;
+$$;
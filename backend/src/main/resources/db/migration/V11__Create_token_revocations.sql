@@ -0,0 +1,11 @@
+-- Deny-list of JWTs: a single token by its jti (TOKEN) or every token of a user issued up to revoked_at (USER)
+CREATE TABLE token_revocations (
+    kind VARCHAR(10) NOT NULL CHECK (kind IN ('TOKEN', 'USER')),
+    subject_id UUID NOT NULL,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (kind, subject_id)
+);
+
+CREATE INDEX idx_token_revocations_revoked ON token_revocations(revoked_at);
+CREATE INDEX idx_token_revocations_expires ON token_revocations(expires_at);
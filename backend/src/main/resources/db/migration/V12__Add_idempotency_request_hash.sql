@@ -0,0 +1,2 @@
+-- Fingerprint of the request that claimed the key, so reusing a key with a different payload is rejected
+ALTER TABLE idempotency_keys ADD COLUMN request_hash VARCHAR(64);
@@ -0,0 +1,11 @@
+-- Order numbers are unique per node id; the constraint catches misconfigured nodes sharing an id.
+-- Unique indexes on the partitioned table must include the partition key (created_at).
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'orders' AND column_name = 'order_number') THEN
+        CREATE UNIQUE INDEX idx_orders_order_number_created ON orders(order_number, created_at);
+        DROP INDEX IF EXISTS idx_orders_order_number;
+    END IF;
+END;
+$$;
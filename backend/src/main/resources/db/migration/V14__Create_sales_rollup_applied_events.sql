@@ -0,0 +1,14 @@
+-- Rollup changes already applied from the outbox, so a redelivered event is not counted twice
+CREATE TABLE sales_rollup_applied_events (
+    order_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (order_id, event_type)
+);
+
+CREATE INDEX idx_sales_rollup_applied_events_applied_at ON sales_rollup_applied_events(applied_at);
+
+-- Orders whose events are still undelivered were already counted inside their checkout or cancel transaction
+INSERT INTO sales_rollup_applied_events (order_id, event_type)
+SELECT DISTINCT aggregate_id, event_type FROM outbox_events
+WHERE status <> 'PUBLISHED' AND event_type IN ('ORDER_CREATED', 'ORDER_CANCELLED');
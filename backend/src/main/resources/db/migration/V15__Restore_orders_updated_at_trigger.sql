@@ -0,0 +1,4 @@
+-- V10 rebuilt orders as a partitioned table and lost the updated_at trigger from V1.
+-- A row trigger on the partitioned parent is cloned to every existing and future partition.
+DROP TRIGGER IF EXISTS update_orders_updated_at ON orders;
+CREATE TRIGGER update_orders_updated_at BEFORE UPDATE ON orders FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
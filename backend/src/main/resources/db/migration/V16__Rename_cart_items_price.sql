@@ -0,0 +1,9 @@
+-- The cart line price column is mapped as unit_price, like order_items; V1 created it as price
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'cart_items' AND column_name = 'price') THEN
+        ALTER TABLE cart_items RENAME COLUMN price TO unit_price;
+    END IF;
+END;
+$$;
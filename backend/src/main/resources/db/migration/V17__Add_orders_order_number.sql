@@ -0,0 +1,9 @@
+-- Orders are mapped and exported with an order number, but only database/init.sql created the
+-- column; Flyway-built schemas never had it. Added on the partitioned parent, so every partition gets it.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS order_number VARCHAR(50);
+
+UPDATE orders SET order_number = 'LEGACY-' || id WHERE order_number IS NULL;
+
+ALTER TABLE orders ALTER COLUMN order_number SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_orders_order_number ON orders(order_number);
@@ -0,0 +1,56 @@
+-- Registry of issued order numbers. The unique index from V13 included created_at (the partition key),
+-- and two nodes sharing an id stamp their orders with different created_at, so it never caught them.
+-- Every order insert now also claims its number here, and a duplicate fails the insert.
+-- The registry is per database: with order shards it catches colliding nodes writing to the same shard,
+-- and the required NODE_ID keeps numbers unique across shards.
+CREATE TABLE order_numbers (
+    order_number VARCHAR(50) PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_order_numbers_created ON order_numbers(created_at);
+
+INSERT INTO order_numbers (order_number, created_at)
+SELECT order_number, MIN(created_at) FROM orders GROUP BY order_number;
+
+CREATE OR REPLACE FUNCTION claim_order_number() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO order_numbers (order_number, created_at) VALUES (NEW.order_number, NEW.created_at);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS claim_order_number ON orders;
+CREATE TRIGGER claim_order_number AFTER INSERT ON orders
+    FOR EACH ROW EXECUTE FUNCTION claim_order_number();
+
+DROP INDEX IF EXISTS idx_orders_order_number_created;
+CREATE INDEX IF NOT EXISTS idx_orders_order_number ON orders(order_number);
+
+-- Archiving a month also forgets its order numbers; they embed their timestamp and are not reissued
+CREATE OR REPLACE FUNCTION archive_order_partitions(keep_months INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    archived INTEGER := 0;
+    cutoff DATE := (date_trunc('month', CURRENT_DATE) - make_interval(months => keep_months))::DATE;
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT parent.relname AS parent_table, child.relname AS partition_name
+        FROM pg_inherits i
+        JOIN pg_class parent ON parent.oid = i.inhparent
+        JOIN pg_class child ON child.oid = i.inhrelid
+        JOIN pg_namespace ns ON ns.oid = child.relnamespace
+        WHERE parent.relname IN ('orders', 'order_items')
+          AND ns.nspname = current_schema()
+          AND child.relname ~ '_p[0-9]{6}$'
+          AND to_date(right(child.relname, 6), 'YYYYMM') < cutoff
+        ORDER BY child.relname
+    LOOP
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', part.parent_table, part.partition_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA archive', part.partition_name);
+        archived := archived + 1;
+    END LOOP;
+    DELETE FROM order_numbers WHERE created_at < cutoff;
+    RETURN archived;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,16 @@
+-- Create stock_reservations table (temporary holds of stock for cart lines)
+CREATE TABLE stock_reservations (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    cart_id UUID NOT NULL REFERENCES shopping_carts(id) ON DELETE CASCADE,
+    product_id UUID NOT NULL REFERENCES products(id) ON DELETE CASCADE,
+    quantity INTEGER NOT NULL CHECK (quantity > 0),
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(cart_id, product_id)
+);
+
+-- Live holds per product are summed on every reservation and stock check
+CREATE INDEX idx_stock_reservations_product_expires ON stock_reservations(product_id, expires_at);
+
+-- Used by the sweeper to release expired holds in batches
+CREATE INDEX idx_stock_reservations_expires ON stock_reservations(expires_at);
@@ -0,0 +1,3 @@
+-- Version columns for optimistic concurrency on carts edited from several devices
+ALTER TABLE shopping_carts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cart_items ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
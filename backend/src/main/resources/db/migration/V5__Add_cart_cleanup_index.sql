@@ -0,0 +1,2 @@
+-- Keyset index used by the abandoned cart cleanup job
+CREATE INDEX idx_shopping_carts_updated ON shopping_carts(updated_at, id);
@@ -0,0 +1,2 @@
+-- Keyset pagination of a user's order history (newest first)
+CREATE INDEX idx_orders_user_created ON orders(user_id, created_at DESC, id DESC);
@@ -0,0 +1,39 @@
+-- Pre-aggregated sales per product and per category, maintained incrementally by checkout and cancellation
+CREATE TABLE sales_rollup_hourly (
+    bucket TIMESTAMP NOT NULL,
+    dimension VARCHAR(10) NOT NULL CHECK (dimension IN ('PRODUCT', 'CATEGORY')),
+    dimension_id UUID NOT NULL,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, bucket, dimension_id)
+);
+
+CREATE TABLE sales_rollup_daily (
+    bucket TIMESTAMP NOT NULL,
+    dimension VARCHAR(10) NOT NULL CHECK (dimension IN ('PRODUCT', 'CATEGORY')),
+    dimension_id UUID NOT NULL,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, bucket, dimension_id)
+);
+
+-- Backfill from existing non-cancelled orders
+CREATE TEMPORARY TABLE sales_backfill ON COMMIT DROP AS
+SELECT o.id AS order_id, o.created_at, oi.product_id, p.category_id, oi.quantity, oi.total_price
+FROM orders o
+JOIN order_items oi ON oi.order_id = o.id
+LEFT JOIN products p ON p.id = oi.product_id
+WHERE o.status <> 'CANCELLED';
+
+INSERT INTO sales_rollup_hourly (bucket, dimension, dimension_id, units, revenue, order_count)
+SELECT date_trunc('hour', created_at), 'PRODUCT', product_id, SUM(quantity), SUM(total_price), COUNT(DISTINCT order_id)
+FROM sales_backfill GROUP BY 1, 3
+UNION ALL
+SELECT date_trunc('hour', created_at), 'CATEGORY', category_id, SUM(quantity), SUM(total_price), COUNT(DISTINCT order_id)
+FROM sales_backfill WHERE category_id IS NOT NULL GROUP BY 1, 3;
+
+INSERT INTO sales_rollup_daily (bucket, dimension, dimension_id, units, revenue, order_count)
+SELECT date_trunc('day', bucket), dimension, dimension_id, SUM(units), SUM(revenue), SUM(order_count)
+FROM sales_rollup_hourly GROUP BY 1, 2, 3;
@@ -0,0 +1,3 @@
+-- Primary only: order shards do not hold users or products, so these references cannot exist there
+ALTER TABLE orders ADD FOREIGN KEY (user_id) REFERENCES users(id);
+ALTER TABLE order_items ADD FOREIGN KEY (product_id) REFERENCES products(id);
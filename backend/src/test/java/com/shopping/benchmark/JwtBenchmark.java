@@ -0,0 +1,70 @@
+package com.shopping.benchmark;
+
+import com.shopping.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bearer token verification through {@link JwtService}: a cache hit (digest lookup only) against a
+ * miss (HMAC check and claims parsing, then the cache insert that the cache-less service evicts
+ * straight away).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="JwtBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtBenchmark {
+    
+    private static final String SECRET = "benchmarkSecretKey1234567890123456789012345";
+    private static final int TOKENS = 1024;
+    
+    private JwtService cachingService;
+    private JwtService uncachedService;
+    private String[] tokens;
+    
+    @Setup
+    public void setUp() {
+        cachingService = new JwtService(SECRET, 3_600_000, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        uncachedService = new JwtService(SECRET, 3_600_000, 0, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = cachingService.generateToken(UUID.randomUUID(), "user" + i + "@example.com", "CUSTOMER");
+            cachingService.decode(tokens[i]);
+        }
+    }
+    
+    @Benchmark
+    public Jwt verifyHit() {
+        return cachingService.decode(nextToken());
+    }
+    
+    @Benchmark
+    public Jwt verifyMiss() {
+        return uncachedService.decode(nextToken());
+    }
+    
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(TOKENS)];
+    }
+}
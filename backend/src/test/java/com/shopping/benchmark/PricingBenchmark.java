@@ -0,0 +1,75 @@
+package com.shopping.benchmark;
+
+import com.shopping.model.CartItem;
+import com.shopping.model.Money;
+import com.shopping.service.PricingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart summary pricing: the previous BigDecimal path (per-call constants, BigDecimal line totals)
+ * against {@link PricingService} on long minor units.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="PricingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+    
+    @Param({"1", "10", "100"})
+    private int lines;
+    
+    private List<CartItem> items;
+    private PricingService pricingService;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(CartItem.builder()
+                .cartId(UUID.randomUUID())
+                .productId(UUID.randomUUID())
+                .quantity(1 + random.nextInt(5))
+                .unitPrice(BigDecimal.valueOf(100 + random.nextInt(20_000), 2))
+                .build());
+        }
+        pricingService = new PricingService(new BigDecimal("50.00"), new BigDecimal("9.99"), new BigDecimal("0.08"));
+    }
+    
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (CartItem item : items) {
+            subtotal = subtotal.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        BigDecimal shipping = subtotal.compareTo(new BigDecimal("50.00")) >= 0 ? BigDecimal.ZERO : new BigDecimal("9.99");
+        BigDecimal tax = subtotal.multiply(new BigDecimal("0.08"));
+        return subtotal.add(shipping).add(tax);
+    }
+    
+    @Benchmark
+    public Money money() {
+        return pricingService.price(items).total();
+    }
+}
@@ -0,0 +1,87 @@
+package com.shopping.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class DatabaseRoutingConnectionFactoryTest {
+    
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection shardConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    
+    private final ShardRouter shardRouter = new ShardRouter(2);
+    private final ReadReplicaRouter readReplicaRouter = new ReadReplicaRouter(true, Duration.ofSeconds(5));
+    private final DatabaseRoutingConnectionFactory routing = new DatabaseRoutingConnectionFactory();
+    
+    @BeforeEach
+    void setUp() {
+        routing.setDefaultTargetConnectionFactory(factoryOf(primaryConnection));
+        routing.setTargetConnectionFactories(Map.of(
+            1, factoryOf(shardConnection),
+            ReadReplicaRouter.REPLICA, factoryOf(replicaConnection)));
+        routing.afterPropertiesSet();
+    }
+    
+    @Test
+    void usesPrimaryWithoutRoutingKey() {
+        StepVerifier.create(connection())
+            .expectNext(primaryConnection)
+            .verifyComplete();
+    }
+    
+    @Test
+    void usesReplicaForReplicaReads() {
+        StepVerifier.create(readReplicaRouter.onReplica(connection()))
+            .expectNext(replicaConnection)
+            .verifyComplete();
+    }
+    
+    @Test
+    void shardKeyWinsOverReplicaKey() {
+        // Order reads are wrapped as onReplica(onShard(...)), so both keys are in the context
+        StepVerifier.create(readReplicaRouter.onReplica(UUID.randomUUID(), shardRouter.onShard(1, connection())))
+            .expectNext(shardConnection)
+            .verifyComplete();
+        StepVerifier.create(shardRouter.onShard(1, readReplicaRouter.onReplica(connection())))
+            .expectNext(shardConnection)
+            .verifyComplete();
+    }
+    
+    @Test
+    void onPrimaryDropsShardKey() {
+        StepVerifier.create(shardRouter.onShard(1, shardRouter.onPrimary(connection())))
+            .expectNext(primaryConnection)
+            .verifyComplete();
+    }
+    
+    @Test
+    void recentWriterReadsFromPrimary() {
+        UUID writer = UUID.randomUUID();
+        readReplicaRouter.recordWrite(writer);
+        
+        StepVerifier.create(readReplicaRouter.onReplica(writer, connection()))
+            .expectNext(primaryConnection)
+            .verifyComplete();
+    }
+    
+    private Mono<Connection> connection() {
+        return Mono.from(routing.create());
+    }
+    
+    private static ConnectionFactory factoryOf(Connection connection) {
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        doReturn(Mono.just(connection)).when(factory).create();
+        return factory;
+    }
+}
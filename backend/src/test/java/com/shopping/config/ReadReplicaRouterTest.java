@@ -0,0 +1,70 @@
+package com.shopping.config;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ReadReplicaRouterTest {
+    
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+    
+    private final AtomicLong nanos = new AtomicLong();
+    private final ReadReplicaRouter router = new ReadReplicaRouter(true, WINDOW, nanos::get);
+    
+    @Test
+    void readsGoToReplicaByDefault() {
+        StepVerifier.create(router.onReplica(UUID.randomUUID(), target()))
+            .expectNext(ReadReplicaRouter.REPLICA)
+            .verifyComplete();
+    }
+    
+    @Test
+    void writerReadsFromPrimaryForTheWindowThenFromReplica() {
+        UUID writer = UUID.randomUUID();
+        router.recordWrite(writer);
+        
+        StepVerifier.create(router.onReplica(writer, target())).verifyComplete();
+        StepVerifier.create(router.onReplica(UUID.randomUUID(), target()))
+            .expectNext(ReadReplicaRouter.REPLICA)
+            .verifyComplete();
+        
+        nanos.addAndGet(WINDOW.minusMillis(1).toNanos());
+        StepVerifier.create(router.onReplica(writer, target())).verifyComplete();
+        
+        nanos.addAndGet(Duration.ofMillis(1).toNanos());
+        StepVerifier.create(router.onReplica(writer, target()))
+            .expectNext(ReadReplicaRouter.REPLICA)
+            .verifyComplete();
+    }
+    
+    @Test
+    void laggingReplicaIsOnlyUsedForProbes() {
+        router.setLagging(true);
+        
+        StepVerifier.create(router.onReplica(target())).verifyComplete();
+        StepVerifier.create(router.onReplicaOnly(target()))
+            .expectNext(ReadReplicaRouter.REPLICA)
+            .verifyComplete();
+        
+        router.setLagging(false);
+        StepVerifier.create(router.onReplica(target()))
+            .expectNext(ReadReplicaRouter.REPLICA)
+            .verifyComplete();
+    }
+    
+    @Test
+    void disabledRouterIsPassThrough() {
+        ReadReplicaRouter disabled = new ReadReplicaRouter(false, WINDOW);
+        
+        StepVerifier.create(disabled.onReplica(UUID.randomUUID(), target())).verifyComplete();
+        StepVerifier.create(disabled.onReplicaOnly(target())).verifyComplete();
+    }
+    
+    private static Mono<Object> target() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(ReadReplicaRouter.CONTEXT_KEY)));
+    }
+}
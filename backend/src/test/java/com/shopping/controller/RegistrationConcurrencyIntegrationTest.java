@@ -0,0 +1,95 @@
+package com.shopping.controller;
+
+import com.shopping.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent registrations with the same email against a real Postgres: the unique email constraint
+ * lets exactly one through with 201 and the others get 409.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RegistrationConcurrencyIntegrationTest {
+    
+    private static final int ROUNDS = 10;
+    
+    @Container
+    static final PostgreSQLContainer<?> DATABASE = new PostgreSQLContainer<>("postgres:15-alpine")
+        .withDatabaseName("shopping_db")
+        .withUsername("shopping_user")
+        .withPassword("shopping_pass");
+    
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + DATABASE.getHost() + ":"
+            + DATABASE.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + DATABASE.getDatabaseName());
+        registry.add("spring.flyway.url", DATABASE::getJdbcUrl);
+        registry.add("spring.flyway.user", DATABASE::getUsername);
+        registry.add("spring.flyway.password", DATABASE::getPassword);
+        // Rate limits would turn some of the parallel attempts into 429s
+        registry.add("app.auth.admission.enabled", () -> "false");
+    }
+    
+    @LocalServerPort
+    private int port;
+    
+    @Test
+    void parallelRegistrationsWithSameEmailCreateOneUser() throws SQLException {
+        WebClient client = WebClient.create("http://localhost:" + port);
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            String email = "race" + round + "@example.com";
+            
+            List<Integer> statuses = Flux.range(0, 2)
+                .flatMap(attempt -> register(client, email), 2)
+                .collectList()
+                .block();
+            
+            assertThat(statuses).containsExactlyInAnyOrder(201, 409);
+            assertThat(countUsers(email)).isEqualTo(1);
+        }
+    }
+    
+    private static Mono<Integer> register(WebClient client, String email) {
+        RegisterRequest request = RegisterRequest.builder()
+            .email(email)
+            .password("secret123")
+            .firstName("Race")
+            .lastName("Condition")
+            .build();
+        
+        return client.post()
+            .uri("/api/auth/register")
+            .bodyValue(request)
+            .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()));
+    }
+    
+    private static long countUsers(String email) throws SQLException {
+        try (Connection connection = DATABASE.createConnection("");
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE email = ?")) {
+            statement.setString(1, email);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.shopping.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedTokenBucketsTest {
+    
+    @Test
+    void emptyBucketRejectsOnlyItsOwnKey() {
+        KeyedTokenBuckets buckets = new KeyedTokenBuckets(1000, 5, 0.1);
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(buckets.tryAcquire("victim@example.com")).isTrue();
+        }
+        assertThat(buckets.tryAcquire("victim@example.com")).isFalse();
+        assertThat(buckets.tryAcquire("other@example.com")).isTrue();
+    }
+    
+    @Test
+    void sprayOverManyKeysDoesNotLockOutOtherKeys() {
+        KeyedTokenBuckets buckets = new KeyedTokenBuckets(1000, 5, 0.1);
+        
+        for (int i = 0; i < 50_000; i++) {
+            for (int attempt = 0; attempt < 6; attempt++) {
+                buckets.tryAcquire("spray" + i + "@example.com");
+            }
+        }
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(buckets.tryAcquire("user" + i + "@example.com")).isTrue();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.shopping.service;
+
+import com.shopping.config.ReadReplicaRouter;
+import com.shopping.model.CartItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Read routing against a real primary and a streaming replica built from it with pg_basebackup.
+ * Replay on the replica is paused to hold it behind the primary: recent writers must still read from
+ * the primary, other reads see the stale replica until the lag check takes it out of rotation.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ReadReplicaIntegrationTest {
+    
+    private static final UUID CUSTOMER_ID = UUID.fromString("770e8400-e29b-41d4-a716-446655440002");
+    private static final UUID JEANS_ID = UUID.fromString("660e8400-e29b-41d4-a716-446655440008");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    
+    private static final Network NETWORK = Network.newNetwork();
+    
+    @Container
+    static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:15-alpine")
+        .withDatabaseName("shopping_db")
+        .withUsername("shopping_user")
+        .withPassword("shopping_pass")
+        .withNetwork(NETWORK)
+        .withNetworkAliases("primary")
+        // The image's pg_hba.conf only admits regular connections from other hosts
+        .withCopyToContainer(Transferable.of("echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n"),
+            "/docker-entrypoint-initdb.d/replication.sh");
+    
+    @Container
+    static final GenericContainer<?> REPLICA = new GenericContainer<>("postgres:15-alpine")
+        .withNetwork(NETWORK)
+        .withEnv("PGPASSWORD", "shopping_pass")
+        .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+        .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres").withEntrypoint("sh", "-c",
+            "until pg_basebackup -h primary -U shopping_user -D \"$PGDATA\" -R -X stream; do rm -rf \"$PGDATA\"/*; sleep 1; done; "
+                + "chmod 700 \"$PGDATA\"; exec postgres"))
+        .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1))
+        .dependsOn(PRIMARY);
+    
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + PRIMARY.getHost() + ":"
+            + PRIMARY.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/shopping_db");
+        registry.add("spring.flyway.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.flyway.user", PRIMARY::getUsername);
+        registry.add("spring.flyway.password", PRIMARY::getPassword);
+        registry.add("app.read-replica.enabled", () -> "true");
+        registry.add("app.read-replica.url", () -> "r2dbc:postgresql://" + REPLICA.getHost() + ":"
+            + REPLICA.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/shopping_db");
+        registry.add("app.read-replica.read-your-writes-window", () -> "1m");
+        registry.add("app.read-replica.max-lag", () -> "1s");
+        // Lag is checked by the tests themselves
+        registry.add("app.read-replica.lag-check-interval-ms", () -> "3600000");
+        registry.add("app.outbox.relay.enabled", () -> "false");
+    }
+    
+    @Autowired
+    private ShoppingCartService cartService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    
+    @Autowired
+    private ReadReplicaRouter readReplicaRouter;
+    
+    @BeforeEach
+    void replicaInRotation() throws Exception {
+        String primaryLsn = queryString(PRIMARY.createConnection(""), "SELECT pg_current_wal_lsn()::text");
+        await(() -> "t".equals(queryString(replicaConnection(), "SELECT (pg_last_wal_replay_lsn() >= '" + primaryLsn + "'::pg_lsn)::text")));
+        replicaLagMonitor.checkLag().block();
+        assertThat(readReplicaRouter.isLagging()).isFalse();
+    }
+    
+    @AfterEach
+    void resumeReplay() throws SQLException {
+        execute(replicaConnection(), "SELECT pg_wal_replay_resume()");
+    }
+    
+    @Test
+    void recentWriterReadsFromPrimaryWhileOthersReadTheStaleReplica() throws Exception {
+        String name = productName();
+        
+        execute(replicaConnection(), "SELECT pg_wal_replay_pause()");
+        execute(PRIMARY.createConnection(""), "UPDATE products SET name = name || ' v2' WHERE id = '" + JEANS_ID + "'");
+        cartService.addItemToCart(CUSTOMER_ID, JEANS_ID, 1).block();
+        
+        List<CartItem> items = cartService.getCartItems(CUSTOMER_ID).collectList().block();
+        assertThat(items).extracting(CartItem::getProductId).containsExactly(JEANS_ID);
+        assertThat(productService.getProductById(JEANS_ID).block().getName()).isEqualTo(name);
+    }
+    
+    @Test
+    void laggingReplicaLeavesRotationUntilItCatchesUp() throws Exception {
+        String name = productName() + " (lag)";
+        
+        execute(replicaConnection(), "SELECT pg_wal_replay_pause()");
+        execute(PRIMARY.createConnection(""), "UPDATE products SET name = '" + name + "' WHERE id = '" + JEANS_ID + "'");
+        
+        await(() -> {
+            replicaLagMonitor.checkLag().block();
+            return readReplicaRouter.isLagging();
+        });
+        assertThat(productService.getProductById(JEANS_ID).block().getName()).isEqualTo(name);
+        
+        execute(replicaConnection(), "SELECT pg_wal_replay_resume()");
+        await(() -> {
+            replicaLagMonitor.checkLag().block();
+            return !readReplicaRouter.isLagging();
+        });
+        assertThat(productService.getProductById(JEANS_ID).block().getName()).isEqualTo(name);
+    }
+    
+    private static String productName() throws SQLException {
+        return queryString(PRIMARY.createConnection(""), "SELECT name FROM products WHERE id = '" + JEANS_ID + "'");
+    }
+    
+    private static Connection replicaConnection() throws SQLException {
+        return DriverManager.getConnection("jdbc:postgresql://" + REPLICA.getHost() + ":"
+            + REPLICA.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/shopping_db", "shopping_user", "shopping_pass");
+    }
+    
+    private static String queryString(Connection connection, String sql) throws SQLException {
+        try (connection;
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+    
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (connection;
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+    
+    private static void await(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.call()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within " + TIMEOUT);
+            }
+            Thread.sleep(100);
+        }
+    }
+}
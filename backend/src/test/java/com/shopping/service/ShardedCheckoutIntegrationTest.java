@@ -0,0 +1,146 @@
+package com.shopping.service;
+
+import com.shopping.model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checkout with orders on a separate shard database: the shard is migrated without the primary-only
+ * foreign keys, and stock plus cart are taken on the primary before the order is written to the
+ * shard.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ShardedCheckoutIntegrationTest {
+    
+    private static final UUID ADMIN_ID = UUID.fromString("770e8400-e29b-41d4-a716-446655440001");
+    private static final UUID CUSTOMER_ID = UUID.fromString("770e8400-e29b-41d4-a716-446655440002");
+    private static final UUID JEANS_ID = UUID.fromString("660e8400-e29b-41d4-a716-446655440008");
+    
+    @Container
+    static final PostgreSQLContainer<?> PRIMARY = database();
+    
+    @Container
+    static final PostgreSQLContainer<?> SHARD = database();
+    
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> r2dbcUrl(PRIMARY));
+        registry.add("spring.flyway.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.flyway.user", PRIMARY::getUsername);
+        registry.add("spring.flyway.password", PRIMARY::getPassword);
+        registry.add("app.sharding.enabled", () -> "true");
+        registry.add("app.sharding.urls", () -> r2dbcUrl(SHARD));
+        registry.add("app.outbox.relay.enabled", () -> "false");
+    }
+    
+    @Autowired
+    private ShoppingCartService cartService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Test
+    void shardIsMigratedWithoutReferencesToPrimaryTables() throws SQLException {
+        String foreignKeys = "SELECT COUNT(*) FROM pg_constraint WHERE contype = 'f' AND conrelid IN ('orders'::regclass, 'order_items'::regclass)";
+        
+        assertThat(queryLong(SHARD, foreignKeys)).isZero();
+        assertThat(queryLong(PRIMARY, foreignKeys)).isEqualTo(2);
+    }
+    
+    @Test
+    void checkoutWritesOrderToShardAndEmptiesCartOnPrimary() throws SQLException {
+        long stockBefore = stock(JEANS_ID);
+        cartService.addItemToCart(CUSTOMER_ID, JEANS_ID, 2).block();
+        
+        Order order = orderService.createOrderFromCart(CUSTOMER_ID, "Rua A, 1", "Rua A, 1", "CREDIT_CARD").block();
+        
+        assertThat(order).isNotNull();
+        assertThat(queryLong(SHARD, "SELECT COUNT(*) FROM orders WHERE id = ?", order.getId())).isEqualTo(1);
+        assertThat(queryLong(SHARD, "SELECT COUNT(*) FROM order_items WHERE order_id = ?", order.getId())).isEqualTo(1);
+        assertThat(queryLong(SHARD, "SELECT COUNT(*) FROM order_numbers WHERE order_number = ?", order.getOrderNumber()))
+            .isEqualTo(1);
+        assertThat(queryLong(PRIMARY, "SELECT COUNT(*) FROM orders WHERE id = ?", order.getId())).isZero();
+        assertThat(cartItemCount(CUSTOMER_ID)).isZero();
+        assertThat(stock(JEANS_ID)).isEqualTo(stockBefore - 2);
+    }
+    
+    @Test
+    void failedShardWriteGivesBackStockAndCart() throws SQLException {
+        long stockBefore = stock(JEANS_ID);
+        cartService.addItemToCart(ADMIN_ID, JEANS_ID, 3).block();
+        
+        // The order and its items are written, then the outbox insert fails and rolls the shard transaction back
+        execute(SHARD, "ALTER TABLE outbox_events RENAME TO outbox_events_unavailable");
+        try {
+            assertThatThrownBy(() -> orderService.createOrderFromCart(ADMIN_ID, "Rua B, 2", "Rua B, 2", "CREDIT_CARD").block())
+                .hasStackTraceContaining("outbox_events");
+        } finally {
+            execute(SHARD, "ALTER TABLE outbox_events_unavailable RENAME TO outbox_events");
+        }
+        
+        assertThat(queryLong(SHARD, "SELECT COUNT(*) FROM orders WHERE user_id = ?", ADMIN_ID)).isZero();
+        assertThat(queryLong(SHARD, "SELECT COUNT(*) FROM order_items oi " +
+            "WHERE NOT EXISTS (SELECT 1 FROM orders o WHERE o.id = oi.order_id)")).isZero();
+        assertThat(cartItemCount(ADMIN_ID)).isEqualTo(1);
+        assertThat(queryLong(PRIMARY, "SELECT ci.quantity FROM cart_items ci JOIN shopping_carts c ON c.id = ci.cart_id " +
+            "WHERE c.user_id = ?", ADMIN_ID)).isEqualTo(3);
+        assertThat(stock(JEANS_ID)).isEqualTo(stockBefore);
+    }
+    
+    private static PostgreSQLContainer<?> database() {
+        return new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("shopping_db")
+            .withUsername("shopping_user")
+            .withPassword("shopping_pass");
+    }
+    
+    private static String r2dbcUrl(PostgreSQLContainer<?> database) {
+        return "r2dbc:postgresql://" + database.getHost() + ":" + database.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT)
+            + "/" + database.getDatabaseName();
+    }
+    
+    private static long stock(UUID productId) throws SQLException {
+        return queryLong(PRIMARY, "SELECT stock_quantity FROM products WHERE id = ?", productId);
+    }
+    
+    private static long cartItemCount(UUID userId) throws SQLException {
+        return queryLong(PRIMARY, "SELECT COUNT(*) FROM cart_items ci JOIN shopping_carts c ON c.id = ci.cart_id " +
+            "WHERE c.user_id = ?", userId);
+    }
+    
+    private static long queryLong(PostgreSQLContainer<?> database, String sql, Object... args) throws SQLException {
+        try (Connection connection = database.createConnection("");
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+    
+    private static void execute(PostgreSQLContainer<?> database, String sql) throws SQLException {
+        try (Connection connection = database.createConnection("");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.shopping.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+    
+    private static final int NODES = 4;
+    private static final int THREADS_PER_NODE = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+    
+    @Test
+    void idsAreUniqueAcrossThreadsAndNodesAndIncreasingPerThread() throws Exception {
+        List<SnowflakeIdGenerator> generators = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            generators.add(new SnowflakeIdGenerator(node, new MockEnvironment()));
+        }
+        
+        Set<Long> ids = ConcurrentHashMap.newKeySet(NODES * THREADS_PER_NODE * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (SnowflakeIdGenerator generator : generators) {
+                for (int t = 0; t < THREADS_PER_NODE; t++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        long previous = -1;
+                        boolean increasing = true;
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            long id = generator.nextId();
+                            increasing &= id > previous;
+                            previous = id;
+                            ids.add(id);
+                        }
+                        return increasing;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertThat(ids).hasSize(NODES * THREADS_PER_NODE * IDS_PER_THREAD);
+    }
+    
+    @Test
+    void idsCarryTheirNodeId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513, new MockEnvironment());
+        
+        long id = generator.nextId();
+        
+        assertThat((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID).isEqualTo(513);
+    }
+    
+    @Test
+    void missingNodeIdIsRejectedOutsideDev() {
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+        
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1, prod))
+            .isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void missingNodeIdIsDerivedInDev() {
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(-1, dev);
+        
+        assertThat(generator.getNodeId()).isBetween(0L, SnowflakeIdGenerator.MAX_NODE_ID);
+    }
+    
+    @Test
+    void outOfRangeNodeIdIsRejected() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, new MockEnvironment()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}